@@ -0,0 +1,29 @@
+package MarcSync;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler enabled, accepting the usual JMH command line options.
+ * <p>
+ *     Note: Install the client first and build the benchmarks with {@code mvn install && mvn -f benchmarks/pom.xml package}, then run {@code java -jar benchmarks/target/benchmarks.jar [regexp] [options]}.
+ *     The benchmarks live in the {@code MarcSync} package to reach the package-private codec.
+ * </p>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams() || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,73 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.EntryResponse;
+import MarcSync.classes.EntrySchema;
+import MarcSync.classes.Projection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of entries responses at several result sizes, without any I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int resultSize;
+
+    private final Codec _codec = new Codec();
+    private final Projection _projection = Projection.of("name", "score");
+    private byte[] _response;
+
+    @Setup
+    public void setUp() throws IOException {
+        _response = Fixtures.entriesResponse(_codec, resultSize);
+    }
+
+    @Benchmark
+    public EntryResponse readEntryResponse() throws IOException {
+        return _codec.readEntryResponse(_response);
+    }
+
+    @Benchmark
+    public void streamEntries(Blackhole blackhole) {
+        try (EntryReader<EntryData> reader = new EntryReader<>(new ByteArrayInputStream(_response), _codec::readEntryData)) {
+            reader.forEachRemaining(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void streamCompactEntries(Blackhole blackhole) {
+        EntrySchema schema = new EntrySchema();
+        try (EntryReader<EntryData> reader = new EntryReader<>(new ByteArrayInputStream(_response), jsonReader -> _codec.readCompactEntryData(jsonReader, schema))) {
+            reader.forEachRemaining(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void streamProjectedEntries(Blackhole blackhole) {
+        try (EntryReader<EntryData> reader = new EntryReader<>(new ByteArrayInputStream(_response), jsonReader -> _codec.readEntryData(jsonReader, _projection))) {
+            reader.forEachRemaining(blackhole::consume);
+        }
+    }
+}
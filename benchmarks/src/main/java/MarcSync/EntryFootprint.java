@@ -0,0 +1,65 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.EntrySchema;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures the retained heap per decoded entry for the {@code HashMap} based {@link EntryData} and for {@link MarcSync.classes.CompactEntryData}.
+ * <p>
+ *     Note: Retained size is not something JMH measures, so this is a plain program: {@code java -cp benchmarks/target/benchmarks.jar MarcSync.EntryFootprint [entries]}.
+ *     Run it with {@code -XX:+UseSerialGC} for the most stable numbers.
+ * </p>
+ */
+public final class EntryFootprint {
+
+    private EntryFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Codec codec = new Codec();
+        byte[] response = Fixtures.entriesResponse(codec, size);
+
+        long plain = retainedBytes(() -> decode(response, codec::readEntryData));
+        EntrySchema schema = new EntrySchema();
+        long compact = retainedBytes(() -> decode(response, reader -> codec.readCompactEntryData(reader, schema)));
+
+        System.out.printf("%d entries of %d fields%n", size, Fixtures.entry(0).size());
+        System.out.printf("EntryData:        %6d bytes per entry%n", plain / size);
+        System.out.printf("CompactEntryData: %6d bytes per entry%n", compact / size);
+    }
+
+    private static List<EntryData> decode(byte[] response, EntryReader.ElementDecoder<EntryData> decoder) {
+        List<EntryData> entries = new ArrayList<>();
+        try (EntryReader<EntryData> reader = new EntryReader<>(new ByteArrayInputStream(response), decoder)) {
+            reader.forEachRemaining(entries::add);
+        }
+        return entries;
+    }
+
+    private static long retainedBytes(Supplier<List<EntryData>> decode) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        settle();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        List<EntryData> entries = decode.get();
+        settle();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        if (entries.isEmpty()) {
+            throw new IllegalStateException("No entries decoded");
+        }
+        return after - before;
+    }
+
+    private static void settle() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+    }
+}
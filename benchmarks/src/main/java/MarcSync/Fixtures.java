@@ -0,0 +1,50 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * The entries shared by the benchmarks, shaped like a typical user record with numbers, booleans and strings.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static EntryData entry(int index) {
+        EntryData entryData = new EntryData();
+        entryData.put("_id", String.format("%024x", index));
+        entryData.put("name", "user-" + index);
+        entryData.put("email", "user-" + index + "@example.com");
+        entryData.put("level", index % 100);
+        entryData.put("score", index * 1.5);
+        entryData.put("coins", (long) index * 1000);
+        entryData.put("wins", index % 37);
+        entryData.put("losses", index % 23);
+        entryData.put("rating", 1200.0 + index % 800);
+        entryData.put("premium", index % 2 == 0);
+        entryData.put("banned", false);
+        entryData.put("group", "benchmark");
+        return entryData;
+    }
+
+    /**
+     * @return The body of an entries response with the given number of entries
+     */
+    static byte[] entriesResponse(Codec codec, int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeTo(out, writer -> {
+            writer.beginObject();
+            writer.name("success").value(true);
+            writer.name("entries").beginArray();
+            for (int i = 0; i < size; i++) {
+                codec.writeEntryData(writer, entry(i));
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.CompressionOptions;
+import MarcSync.classes.EntryData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end reads through the client against the in-process {@link StubServer}, reporting throughput and the latency distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int resultSize;
+
+    @Param({"false", "true"})
+    public boolean compression;
+
+    private StubServer _server;
+    private Client _client;
+    private Collection _collection;
+    private EntryData _filters;
+    private String _id;
+
+    @Setup
+    public void setUp() throws Exception {
+        _server = new StubServer();
+        ClientOptions options = new ClientOptions().setBaseUrl(_server.baseUrl());
+        if (compression) {
+            options.setCompression(new CompressionOptions());
+        }
+        _client = new Client("benchmark", options);
+        _collection = _client.createCollection("reads");
+
+        List<EntryData> entries = new ArrayList<>();
+        for (int i = 0; i < resultSize; i++) {
+            entries.add(Fixtures.entry(i));
+        }
+        _collection.createEntries(entries);
+
+        _filters = new EntryData();
+        _filters.put("group", "benchmark");
+        _id = (String) entries.get(0).get("_id");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        _client.close();
+        _server.close();
+    }
+
+    @Benchmark
+    public Entry[] getEntries() throws Exception {
+        return _collection.getEntries(_filters);
+    }
+
+    @Benchmark
+    public Entry getEntryById() throws Exception {
+        return _collection.getEntryById(_id);
+    }
+}
@@ -0,0 +1,55 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.EntryDataPayload;
+import MarcSync.classes.EntryUpdatePayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the request payloads, without any I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Codec _codec = new Codec();
+    private EntryDataPayload _createPayload;
+    private EntryUpdatePayload _updatePayload;
+
+    @Setup
+    public void setUp() {
+        _createPayload = new EntryDataPayload(Fixtures.entry(1));
+        EntryData filters = new EntryData();
+        filters.put("_id", Fixtures.entry(1).get("_id"));
+        EntryData data = new EntryData();
+        data.put("score", 42.5);
+        data.put("premium", true);
+        _updatePayload = new EntryUpdatePayload(filters, data);
+    }
+
+    @Benchmark
+    public byte[] writeEntryDataPayload() throws IOException {
+        return _codec.write(_createPayload);
+    }
+
+    @Benchmark
+    public byte[] writeEntryUpdatePayload() throws IOException {
+        return _codec.write(_updatePayload);
+    }
+}
@@ -0,0 +1,267 @@
+package MarcSync;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory stand-in for the {@code /v0} and {@code /v1} endpoints of the MarcSync API, so benchmarks run without network access.
+ * <p>
+ *     Note: Filters match entries whose fields are equal to every filter value, reads honor the {@code limit} and {@code offset} of scan pages. Read responses are cached per collection and filter until the next write, so the server adds little to the measured time.
+ *     Gzipped request bodies are accepted and read responses are gzipped if the client accepts it.
+ * </p>
+ */
+final class StubServer implements AutoCloseable {
+
+    private static final Gson GSON = new Gson();
+
+    static {
+        // Without it the headers and the body of a response wait on each other through Nagle's algorithm and delayed ACKs, adding about 40ms to every call.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Map<String, StubCollection> _collections = new ConcurrentHashMap<>();
+    private final AtomicLong _ids = new AtomicLong();
+    private final HttpServer _server;
+    private final ExecutorService _executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    StubServer() throws IOException {
+        _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        _server.setExecutor(_executor);
+        _server.createContext("/v0/collection/", this::collection);
+        _server.createContext("/v0/entries/", this::createEntry);
+        _server.createContext("/v1/entries/", this::entries);
+        _server.start();
+    }
+
+    /**
+     * @return The base URL to pass to {@link MarcSync.classes.ClientOptions#setBaseUrl(String)}
+     */
+    String baseUrl() {
+        return "http://" + _server.getAddress().getHostString() + ":" + _server.getAddress().getPort();
+    }
+
+    /**
+     * Removes every entry of the collection, e.g. between iterations of a benchmark creating entries.
+     */
+    void clear(String collectionName) {
+        StubCollection collection = _collections.get(collectionName);
+        if (collection != null) {
+            collection.clear();
+        }
+    }
+
+    private void collection(HttpExchange exchange) throws IOException {
+        String name = name(exchange, "/v0/collection/");
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> respond(exchange, _collections.containsKey(name) ? 200 : 404, "{\"success\":true}");
+            case "POST" -> respond(exchange, _collections.putIfAbsent(name, new StubCollection()) == null ? 200 : 400, "{\"success\":true}");
+            case "DELETE" -> respond(exchange, _collections.remove(name) != null ? 200 : 404, "{\"success\":true}");
+            case "PUT" -> {
+                String newName = body(exchange).get("collectionName").getAsString();
+                StubCollection collection = _collections.remove(name);
+                if (collection != null) {
+                    _collections.put(newName, collection);
+                }
+                respond(exchange, collection != null ? 200 : 404, "{\"success\":true}");
+            }
+            default -> respond(exchange, 405, "{\"success\":false}");
+        }
+    }
+
+    private void createEntry(HttpExchange exchange) throws IOException {
+        StubCollection collection = _collections.get(name(exchange, "/v0/entries/"));
+        if (collection == null || !exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 404, "{\"success\":false}");
+            return;
+        }
+
+        JsonObject data = body(exchange).getAsJsonObject("data");
+        if (!data.has("_id")) {
+            data.addProperty("_id", Long.toHexString(_ids.incrementAndGet()));
+        }
+        collection.add(data);
+        respond(exchange, 200, "{\"success\":true,\"entryId\":\"" + data.get("_id").getAsString() + "\"}");
+    }
+
+    private void entries(HttpExchange exchange) throws IOException {
+        StubCollection collection = _collections.get(name(exchange, "/v1/entries/"));
+        if (collection == null) {
+            respond(exchange, 404, "{\"success\":false}");
+            return;
+        }
+
+        JsonObject body = body(exchange);
+        JsonObject filters = body.has("filters") && body.get("filters").isJsonObject() ? body.getAsJsonObject("filters") : new JsonObject();
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                boolean gzip = exchange.getRequestHeaders().getFirst("accept-encoding") != null && exchange.getRequestHeaders().getFirst("accept-encoding").contains("gzip");
+                if (gzip) {
+                    exchange.getResponseHeaders().set("content-encoding", "gzip");
+                }
+                respond(exchange, 200, collection.find(body, gzip));
+            }
+            case "PUT" -> respond(exchange, 200, "{\"success\":true,\"modifiedEntries\":" + collection.update(filters, body.getAsJsonObject("data")) + "}");
+            case "DELETE" -> respond(exchange, 200, "{\"success\":true,\"deletedEntries\":" + collection.delete(filters) + "}");
+            default -> respond(exchange, 405, "{\"success\":false}");
+        }
+    }
+
+    private static String name(HttpExchange exchange, String prefix) {
+        return exchange.getRequestURI().getPath().substring(prefix.length());
+    }
+
+    private static JsonObject body(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("content-encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        byte[] body = in.readAllBytes();
+        return body.length == 0 ? new JsonObject() : JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("content-type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    private static final class StubCollection {
+        private final List<JsonObject> _entries = new ArrayList<>();
+        private final Map<JsonObject, byte[]> _responses = new ConcurrentHashMap<>();
+        private final Map<JsonObject, byte[]> _gzippedResponses = new ConcurrentHashMap<>();
+
+        synchronized void add(JsonObject entry) {
+            _entries.add(entry);
+            invalidate();
+        }
+
+        synchronized void clear() {
+            _entries.clear();
+            invalidate();
+        }
+
+        /**
+         * @param query The filters and optionally the {@code limit} and {@code offset} of a page
+         */
+        byte[] find(JsonObject query, boolean gzip) throws IOException {
+            if (!gzip) {
+                return find(query);
+            }
+
+            byte[] cached = _gzippedResponses.get(query);
+            if (cached != null) {
+                return cached;
+            }
+
+            synchronized (this) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzipped = new GZIPOutputStream(out)) {
+                    gzipped.write(find(query));
+                }
+                byte[] body = out.toByteArray();
+                _gzippedResponses.put(query, body);
+                return body;
+            }
+        }
+
+        private byte[] find(JsonObject query) {
+            byte[] cached = _responses.get(query);
+            if (cached != null) {
+                return cached;
+            }
+
+            JsonObject filters = query.has("filters") && query.get("filters").isJsonObject() ? query.getAsJsonObject("filters") : new JsonObject();
+            long offset = query.has("offset") ? query.get("offset").getAsLong() : 0;
+            long limit = query.has("limit") ? query.get("limit").getAsLong() : Long.MAX_VALUE;
+            JsonArray entries = new JsonArray();
+            synchronized (this) {
+                long matched = 0;
+                for (JsonObject entry : _entries) {
+                    if (entries.size() < limit && matches(entry, filters) && matched++ >= offset) {
+                        entries.add(entry);
+                    }
+                }
+                JsonObject response = new JsonObject();
+                response.addProperty("success", true);
+                response.add("entries", entries);
+                byte[] body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+                _responses.put(query, body);
+                return body;
+            }
+        }
+
+        synchronized int update(JsonObject filters, JsonObject data) {
+            int modified = 0;
+            for (JsonObject entry : _entries) {
+                if (matches(entry, filters)) {
+                    for (Map.Entry<String, JsonElement> field : data.entrySet()) {
+                        entry.add(field.getKey(), field.getValue());
+                    }
+                    modified++;
+                }
+            }
+            invalidate();
+            return modified;
+        }
+
+        synchronized int delete(JsonObject filters) {
+            int size = _entries.size();
+            _entries.removeIf(entry -> matches(entry, filters));
+            invalidate();
+            return size - _entries.size();
+        }
+
+        private void invalidate() {
+            _responses.clear();
+            _gzippedResponses.clear();
+        }
+
+        private static boolean matches(JsonObject entry, JsonObject filters) {
+            for (Map.Entry<String, JsonElement> filter : filters.entrySet()) {
+                JsonElement value = entry.get(filter.getKey());
+                if (filter.getValue() instanceof JsonObject operator && operator.has("$in")) {
+                    if (!operator.getAsJsonArray("$in").contains(value)) {
+                        return false;
+                    }
+                } else if (!filter.getValue().equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.EntryData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end writes through the client against the in-process {@link StubServer}, reporting throughput and the latency distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    private final AtomicInteger _counter = new AtomicInteger();
+    private StubServer _server;
+    private Client _client;
+    private Collection _collection;
+    private Entry _entry;
+
+    @Setup
+    public void setUp() throws Exception {
+        _server = new StubServer();
+        _client = new Client("benchmark", new ClientOptions().setBaseUrl(_server.baseUrl()));
+        _collection = _client.createCollection("writes");
+        _entry = _client.createCollection("updates").createEntry(Fixtures.entry(0));
+    }
+
+    /**
+     * Drops the entries created by the last iteration so the stub does not grow over the run.
+     */
+    @TearDown(Level.Iteration)
+    public void clear() {
+        _server.clear("writes");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        _client.close();
+        _server.close();
+    }
+
+    @Benchmark
+    public Entry createEntry() throws Exception {
+        return _collection.createEntry(Fixtures.entry(_counter.incrementAndGet()));
+    }
+
+    @Benchmark
+    public EntryData updateValue() throws Exception {
+        return _entry.updateValue("score", _counter.incrementAndGet() * 0.5);
+    }
+}
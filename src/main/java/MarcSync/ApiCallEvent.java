@@ -0,0 +1,57 @@
+package MarcSync;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDK Flight Recorder event for every call to the MarcSync API, spanning from building the request until the response arrived.
+ * <p>
+ *     Note: Enable it with {@code jcmd <pid> JFR.start settings=profile} or a custom {@code .jfc} file containing {@code MarcSync.ApiCall}.
+ * </p>
+ */
+@Name("MarcSync.ApiCall")
+@Label("MarcSync API Call")
+@Category("MarcSync")
+@Description("A call to the MarcSync API")
+@StackTrace(false)
+final class ApiCallEvent extends Event {
+
+    static final EventType TYPE = EventType.getEventType(ApiCallEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Collection")
+    String collection;
+
+    @Label("Method")
+    String method;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Serialization Time")
+    @Timespan
+    long serializationTime;
+
+    @Label("Error")
+    String error;
+}
@@ -1,33 +1,175 @@
 package MarcSync;
 
+import MarcSync.classes.CacheOptions;
+import MarcSync.classes.CacheStats;
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.CoalescingStats;
+import MarcSync.classes.EntrySchema;
+import MarcSync.classes.LimiterOptions;
+import MarcSync.classes.LimiterStats;
+
 import java.io.IOException;
 import java.net.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class Client implements AutoCloseable {
 
-public class Client {
+    private static final Map<String, Client> SHARED = new HashMap<>();
 
-    private final String _accessToken;
+    private final Transport _transport;
+    private final EntryCache _cache;
+    private final Codec _codec = new Codec();
+    private final Map<String, EntrySchema> _schemas;
+    private final SingleFlight _singleFlight;
+    private final boolean _serverProjection;
+    private final Map<String, Collection> _collections = new ConcurrentHashMap<>();
+    private ScheduledExecutorService _scheduler;
+    private int _sharedReferences = 0;
 
     /**
      * Creates a new MarcSync client.
      * @param accessToken The access token to use for communication with MarcSync
      */
     public Client(String accessToken) {
-        _accessToken = accessToken;
+        this(accessToken, new ClientOptions());
+    }
+
+    /**
+     * Creates a new MarcSync client.
+     * @param accessToken The access token to use for communication with MarcSync
+     * @param options The options of the client, e.g. the base URL and the timeouts
+     *
+     * @see ClientOptions
+     */
+    public Client(String accessToken, ClientOptions options) {
+        _transport = new Transport(accessToken, options);
+        _cache = options.getCache() != null ? new EntryCache(options.getCache()) : null;
+        _schemas = options.isCompactEntries() ? new ConcurrentHashMap<>() : null;
+        _singleFlight = options.isCoalesceReads() ? new SingleFlight() : null;
+        _serverProjection = options.isServerProjection();
+
+        if (options.isWarmUp()) {
+            _transport.warmUp();
+        }
+    }
+
+    /**
+     * @return The client shared by every collection created from the access token alone, created on first use, with a reference to release through {@link #release(String, Client)}
+     */
+    static Client acquire(String accessToken) {
+        synchronized (SHARED) {
+            Client client = SHARED.computeIfAbsent(accessToken, Client::new);
+            client._sharedReferences++;
+            return client;
+        }
+    }
+
+    /**
+     * Releases a reference to a shared client, and closes the client once the last one is released, so the connections of a rotated access token do not stay open.
+     */
+    static void release(String accessToken, Client client) throws IOException {
+        synchronized (SHARED) {
+            if (--client._sharedReferences > 0) {
+                return;
+            }
+            SHARED.remove(accessToken, client);
+        }
+        client.close();
+    }
+
+    Transport transport() {
+        return _transport;
+    }
+
+    Codec codec() {
+        return _codec;
+    }
+
+    /**
+     * @return The schema shared by the compact entries of the collection, or {@code null} if compact entries are disabled
+     */
+    EntrySchema schema(String collectionName) {
+        return _schemas != null ? _schemas.computeIfAbsent(collectionName, name -> new EntrySchema()) : null;
+    }
+
+    /**
+     * @return Whether projections are sent to the API
+     */
+    boolean serverProjection() {
+        return _serverProjection;
+    }
+
+    SingleFlight singleFlight() {
+        return _singleFlight;
+    }
+
+    /**
+     * @return How many reads were sent and how many were folded into an identical read in flight, or {@code null} if coalescing is disabled
+     *
+     * @see ClientOptions#setCoalesceReads(boolean)
+     */
+    public CoalescingStats getCoalescingStats() {
+        return _singleFlight != null ? _singleFlight.stats() : null;
+    }
+
+    EntryCache cache() {
+        return _cache;
+    }
+
+    /**
+     * @return The hit and miss statistics of the entry cache shared by every collection, or {@code null} if it is disabled
+     *
+     * @see ClientOptions#setCache(CacheOptions)
+     */
+    public CacheStats getCacheStats() {
+        return _cache != null ? _cache.stats() : null;
+    }
+
+    /**
+     * @return The current concurrency limit, the requests in flight and waiting and how often the limiter rejected a request or backed off, or {@code null} if it is disabled
+     *
+     * @see ClientOptions#setLimiter(LimiterOptions)
+     */
+    public LimiterStats getLimiterStats() {
+        return _transport.limiterStats();
+    }
+
+    /**
+     * @return The scheduler shared by the background work of this client, created on first use
+     */
+    synchronized ScheduledExecutorService scheduler() {
+        if (_scheduler == null) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "marcsync-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return _scheduler;
     }
 
     /**
      * @param collectionName The name of the collection to use
-     * @return A new instance of the MarcSync collection
+     * @return The MarcSync collection, the same instance for every call with the same name
      *
      * @see Collection
+     *
+     * <p>
+     *     Note: Write-behind, the journal and the replica are enabled on the instance, so every caller and every {@link Pipeline} of this client sees them.
+     * </p>
      */
     public Collection getCollection(String collectionName) {
-        return new Collection(_accessToken, collectionName);
+        return _collections.computeIfAbsent(collectionName, name -> new Collection(this, name));
     }
 
     /**
      * @param collectionName The name of the collection to use
-     * @return A new instance of the MarcSync collection
+     * @return The MarcSync collection, the same instance as {@link #getCollection(String)} returns
      *
      * @throws IOException
      * @throws URISyntaxException
@@ -38,37 +180,97 @@ public class Client {
      * </p>
      */
     public Collection fetchCollection(String collectionName) throws IOException, URISyntaxException {
-        URL url = new URI("https://api.marcsync.dev/v0/collection/" + collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
+        _transport.call("fetch collection", () -> _transport.request("GET", "/v0/collection/" + collectionName, null));
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to fetch collection: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+        return getCollection(collectionName);
+    }
 
-        return new Collection(_accessToken, collectionName);
+    /**
+     * @see #fetchCollection(String)
+     */
+    public CompletableFuture<Collection> fetchCollectionAsync(String collectionName) {
+        return _transport.callAsync("fetch collection", () -> _transport.request("GET", "/v0/collection/" + collectionName, null))
+                .thenApply(response -> getCollection(collectionName));
     }
 
     /**
      *
      * @param collectionName The name of the collection to create
-     * @return A new instance of the MarcSync collection
+     * @return The MarcSync collection, the same instance as {@link #getCollection(String)} returns
      *
      * @throws IOException
      * @throws URISyntaxException
      */
     public Collection createCollection(String collectionName) throws IOException, URISyntaxException {
-        URL url = new URI("https://api.marcsync.dev/v0/collection/" + collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to create collection: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+        _transport.call("create collection", () -> _transport.request("POST", "/v0/collection/" + collectionName, null));
+
+        return getCollection(collectionName);
+    }
+
+    /**
+     * @see #createCollection(String)
+     */
+    public CompletableFuture<Collection> createCollectionAsync(String collectionName) {
+        return _transport.callAsync("create collection", () -> _transport.request("POST", "/v0/collection/" + collectionName, null))
+                .thenApply(response -> getCollection(collectionName));
+    }
+
+    /**
+     * @return A new pipeline of writes to entries of any collection of this client
+     *
+     * <p>
+     *     Note: This method is useful if a request handler writes to several collections. Independent writes run concurrently while writes to the same entry keep their order, so the pipeline takes about as long as its slowest chain of writes instead of the sum of all of them.
+     * </p>
+     *
+     * @see Pipeline
+     */
+    public Pipeline pipeline() {
+        return new Pipeline(this);
+    }
+
+    /**
+     * Opens a connection to the MarcSync API ahead of the first request.
+     * <p>
+     *     Note: This method is useful if you want the first request to not pay for the connection setup.
+     * </p>
+     */
+    public void warmUp() {
+        _transport.warmUp().join();
+    }
+
+    /**
+     * Sends the updates buffered by write-behind of every collection of this client and waits for them, closes the journals of the collections and then closes the connections held by this client.
+     *
+     * @throws IOException The first failure of an update sent in the background since the last flush, thrown once everything is closed
+     *
+     * <p>
+     *     Note: Collections and entries created from this client cannot be used anymore afterwards. Writes in a journal which have not been sent yet are kept on disk and sent once the journal is enabled again.
+     * </p>
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Collection collection : _collections.values()) {
+            try {
+                collection.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
         }
 
-        return new Collection(_accessToken, collectionName);
+        synchronized (this) {
+            if (_scheduler != null) {
+                _scheduler.shutdownNow();
+            }
+        }
+        _transport.close();
+
+        if (failure != null) {
+            throw failure;
+        }
     }
 }
@@ -0,0 +1,343 @@
+package MarcSync;
+
+import MarcSync.classes.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The thread-safe JSON codec shared by a {@link Client} and every {@link Collection} and {@link Entry} created from it.
+ * <p>
+ *     Note: Output is compact and written straight to bytes, the payload writers and readers are built once.
+ * </p>
+ */
+final class Codec {
+
+    private final Gson _gson;
+    private final TypeAdapter<Object> _valueAdapter;
+    private final TypeAdapter<EntryData> _entryDataAdapter;
+    private final TypeAdapter<EntryResponse> _entryResponseAdapter;
+    private final Map<Class<?>, TypeAdapter<?>> _adapters = new ConcurrentHashMap<>();
+
+    Codec() {
+        _gson = new GsonBuilder()
+                .serializeNulls()
+                .disableHtmlEscaping()
+                .create();
+        _valueAdapter = _gson.getAdapter(Object.class);
+        _entryDataAdapter = _gson.getAdapter(EntryData.class);
+        _entryResponseAdapter = _gson.getAdapter(EntryResponse.class);
+    }
+
+    byte[] write(EntryDataPayload payload) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("data");
+            writeEntryData(writer, payload.data);
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Writes the entity as the data of an entry, e.g. {@code {"data": {...}}}.
+     */
+    byte[] writeEntity(Object entity) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("data");
+            writeEntity(writer, entity);
+            writer.endObject();
+        });
+    }
+
+    byte[] write(EntryFilterPayload payload) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("filters");
+            writeEntryData(writer, payload.filters);
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Writes the filter of a projected read, e.g. {@code {"filters": {...}, "projection": ["name", "score"]}}.
+     */
+    byte[] write(EntryFilterPayload payload, Projection projection) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("filters");
+            writeEntryData(writer, payload.filters);
+            writer.name("projection").beginArray();
+            for (String field : projection.getFields()) {
+                writer.value(field);
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Writes the filter of a single page of a scan, e.g. {@code {"filters": {...}, "limit": 1000, "offset": 3000}}.
+     */
+    byte[] write(EntryFilterPayload payload, int limit, long offset) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("filters");
+            writeEntryData(writer, payload.filters);
+            writer.name("limit").value(limit);
+            writer.name("offset").value(offset);
+            writer.endObject();
+        });
+    }
+
+    byte[] write(EntryUpdatePayload payload) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("filters");
+            writeEntryData(writer, payload.filters);
+            writer.name("data");
+            writeEntryData(writer, payload.data);
+            writer.endObject();
+        });
+    }
+
+    byte[] write(CollectionUpdatePayload payload) throws IOException {
+        return toBytes(writer -> {
+            writer.beginObject();
+            writer.name("collectionName").value(payload.collectionName);
+            writer.endObject();
+        });
+    }
+
+    EntryData readEntryData(JsonReader reader) throws IOException {
+        return _entryDataAdapter.read(reader);
+    }
+
+    /**
+     * Reads the fields of the projection of an entry, the other fields are skipped without being decoded.
+     */
+    EntryData readEntryData(JsonReader reader, Projection projection) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        EntryData entryData = new EntryData();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (projection.includes(key)) {
+                entryData.put(key, _valueAdapter.read(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return entryData;
+    }
+
+    /**
+     * Reads the data of an entry back from a payload written by {@link #write(EntryDataPayload)} or {@link #writeEntity(Object)}.
+     */
+    EntryData readPayloadData(byte[] payload) throws IOException {
+        try (JsonReader reader = _gson.newJsonReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("data")) {
+                    return readEntryData(reader);
+                }
+                reader.skipValue();
+            }
+            return new EntryData();
+        }
+    }
+
+    /**
+     * @param field The count to read, e.g. {@code "modifiedEntries"} or {@code "deletedEntries"}
+     * @return The count of a write response, or -1 if the response does not carry it
+     */
+    long readCount(byte[] body, String field) throws IOException {
+        try (JsonReader reader = _gson.newJsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(field) && reader.peek() == JsonToken.NUMBER) {
+                    return reader.nextLong();
+                }
+                reader.skipValue();
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @return The string field of a response, e.g. the {@code entryId} of a created entry, or {@code null} if the response does not carry it
+     */
+    String readString(byte[] body, String field) throws IOException {
+        try (JsonReader reader = _gson.newJsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(field) && reader.peek() == JsonToken.STRING) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return The size in bytes of the value as an element of a JSON array, i.e. its escaped UTF-8 encoded JSON plus the separating comma
+     */
+    int elementBytes(Object value) throws IOException {
+        return toBytes(writer -> writeEntity(writer, value)).length + 1;
+    }
+
+    /**
+     * @return The codec of the class, built on first use and cached afterwards
+     */
+    @SuppressWarnings("unchecked")
+    <T> TypeAdapter<T> adapter(Class<T> type) {
+        return (TypeAdapter<T>) _adapters.computeIfAbsent(type, _gson::getAdapter);
+    }
+
+    @SuppressWarnings("unchecked")
+    void writeEntity(JsonWriter writer, Object entity) throws IOException {
+        if (entity == null) {
+            writer.nullValue();
+        } else if (entity instanceof Map<?, ?> map) {
+            writeEntryData(writer, (Map<String, Object>) map);
+        } else {
+            adapter((Class<Object>) entity.getClass()).write(writer, entity);
+        }
+    }
+
+    /**
+     * Reads the values of an entry into a {@link CompactEntryData} of the schema, numbers and booleans are stored unboxed.
+     */
+    EntryData readCompactEntryData(JsonReader reader, EntrySchema schema) throws IOException {
+        return readCompactEntryData(reader, schema, null);
+    }
+
+    /**
+     * @param projection The fields to read, the other fields are skipped without being decoded, or {@code null} to read every field
+     * @see #readCompactEntryData(JsonReader, EntrySchema)
+     */
+    EntryData readCompactEntryData(JsonReader reader, EntrySchema schema, Projection projection) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        CompactEntryData entryData = new CompactEntryData(schema);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (projection != null && !projection.includes(key)) {
+                reader.skipValue();
+                continue;
+            }
+            switch (reader.peek()) {
+                case NUMBER -> entryData.putDouble(key, reader.nextDouble());
+                case BOOLEAN -> entryData.putBoolean(key, reader.nextBoolean());
+                case STRING -> entryData.put(key, reader.nextString());
+                case NULL -> {
+                    reader.nextNull();
+                    entryData.put(key, null);
+                }
+                default -> entryData.put(key, _valueAdapter.read(reader));
+            }
+        }
+        reader.endObject();
+        return entryData;
+    }
+
+    EntryResponse readEntryResponse(byte[] body) throws IOException {
+        return readEntryResponse(new ByteArrayInputStream(body));
+    }
+
+    EntryResponse readEntryResponse(InputStream body) throws IOException {
+        try (JsonReader reader = _gson.newJsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return _entryResponseAdapter.read(reader);
+        }
+    }
+
+    /**
+     * Writes the values of the entry through the declared map shape, so subclasses of {@link EntryData} such as anonymous ones are written like any other.
+     */
+    void writeEntryData(JsonWriter writer, Map<String, Object> entryData) throws IOException {
+        if (entryData == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        for (Map.Entry<String, Object> field : entryData.entrySet()) {
+            writer.name(field.getKey());
+            _valueAdapter.write(writer, field.getValue());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * @return The JSON of the values with the keys of every object sorted, so equal filters always produce the same string
+     */
+    String canonical(Map<String, Object> entryData) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = _gson.newJsonWriter(out);
+        writeCanonical(writer, entryData);
+        writer.flush();
+        return out.toString();
+    }
+
+    private void writeCanonical(JsonWriter writer, Object value) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> field : new TreeMap<>(map).entrySet()) {
+                writer.name(String.valueOf(field.getKey()));
+                writeCanonical(writer, field.getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Iterable<?> iterable) {
+            writer.beginArray();
+            for (Object element : iterable) {
+                writeCanonical(writer, element);
+            }
+            writer.endArray();
+        } else {
+            _valueAdapter.write(writer, value);
+        }
+    }
+
+    void writeTo(OutputStream out, JsonWrite write) throws IOException {
+        JsonWriter writer = _gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write.write(writer);
+        writer.flush();
+    }
+
+    private byte[] toBytes(JsonWrite write) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        writeTo(out, write);
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    interface JsonWrite {
+        void write(JsonWriter writer) throws IOException;
+    }
+}
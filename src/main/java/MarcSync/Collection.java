@@ -1,23 +1,36 @@
 package MarcSync;
 
 import MarcSync.classes.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.google.gson.*;
 
 import java.io.*;
 import java.net.*;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
 
-public class Collection {
+public class Collection implements AutoCloseable {
 
-    private final String _accessToken;
+    private final Client _client;
+    private final Transport _transport;
     private final String _collectionName;
-    private final ObjectMapper _mapper;
+    private final Codec _codec;
+    private volatile WriteBehind _writeBehind;
+    private volatile Journal _journal;
+    private volatile EntryCache _cache;
+    private volatile Replica _replica;
+    private String _sharedAccessToken;
+    private volatile boolean _idSetFilters = true;
+    private final EntrySchema _schema;
 
     /**
      * Creates a new instance of the MarcSync collection
@@ -25,14 +38,23 @@ public class Collection {
      * @param collectionName The name of the collection to use
      *
      * @see Client
+     *
+     * <p>
+     *     Note: Every collection created from the same access token this way shares the connections of one default client, which is closed once every such collection is closed. Use {@link Client#getCollection(String)} to control the options and the lifetime of the client.
+     * </p>
      **/
     public Collection(String accessToken, String collectionName) {
-        _accessToken = accessToken;
-        _collectionName = collectionName;
+        this(Client.acquire(accessToken), collectionName);
+        _sharedAccessToken = accessToken;
+    }
 
-        _mapper = new ObjectMapper();
-        _mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        _mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    Collection(Client client, String collectionName) {
+        _client = client;
+        _transport = client.transport();
+        _collectionName = collectionName;
+        _cache = client.cache();
+        _schema = client.schema(collectionName);
+        _codec = client.codec();
     }
 
     /**
@@ -46,40 +68,32 @@ public class Collection {
      *
      */
     public void drop() throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v0/collection/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("DELETE");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
+        _transport.call("drop collection", this::dropRequest);
+    }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to drop collection: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+    /**
+     * @see #drop()
+     */
+    public CompletableFuture<Void> dropAsync() {
+        return _transport.callAsync("drop collection", this::dropRequest).thenApply(response -> null);
     }
 
     /**
      * @return The name of the collection
      */
     public String setName(String name) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v0/collection/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(new Gson().toJson(new CollectionUpdatePayload(name)).getBytes(StandardCharsets.UTF_8));
-        }
-
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to rename collection: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+        _transport.call("rename collection", () -> setNameRequest(name));
 
         return name;
     }
 
+    /**
+     * @see #setName(String)
+     */
+    public CompletableFuture<String> setNameAsync(String name) {
+        return _transport.callAsync("rename collection", () -> setNameRequest(name)).thenApply(response -> name);
+    }
+
     /**
      * @return The name of the collection
      */
@@ -97,17 +111,15 @@ public class Collection {
      *
      */
     public boolean exists() {
-        try {
-            URL url = new URI("https://api.marcsync.dev/v0/collection/" + _collectionName).toURL();
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("accept", "application/json");
-            connection.setRequestProperty("authorization", _accessToken);
+        return existsAsync().join();
+    }
 
-            return connection.getResponseCode() == 200;
-        } catch (Exception e) {
-            return false;
-        }
+    /**
+     * @see #exists()
+     */
+    public CompletableFuture<Boolean> existsAsync() {
+        return _transport.sendAsync("check collection", () -> _transport.request("GET", "/v0/collection/" + _collectionName, null))
+                .handle((response, throwable) -> throwable == null && response.statusCode() == 200);
     }
 
     /**
@@ -117,50 +129,277 @@ public class Collection {
      *
      */
     public Entry createEntry(EntryData entryData) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v0/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
+        byte[] response = Transport.await(write("create entry", Journal.Operation.CREATE, () -> entryBody(entryData)));
+        replicaCreated(entryData, response);
+
+        return new Entry(this, entryData);
+    }
+
+    /**
+     * @see #createEntry(EntryData)
+     */
+    public CompletableFuture<Entry> createEntryAsync(EntryData entryData) {
+        return write("create entry", Journal.Operation.CREATE, () -> entryBody(entryData)).thenApply(response -> {
+            replicaCreated(entryData, response);
+            return new Entry(this, entryData);
+        });
+    }
+
+    /**
+     * Creates an entry in the collection from a record or POJO
+     *
+     * @param entity The values of the entry, serialized through the cached codec of its class
+     * @return The entity
+     *
+     * @see #getEntries(EntryData, Class)
+     */
+    public <T> T createEntry(T entity) throws URISyntaxException, IOException {
+        byte[] body = _codec.writeEntity(entity);
+        byte[] response = Transport.await(write("create entry", Journal.Operation.CREATE, () -> body));
+        replicaCreated(body, response);
+
+        return entity;
+    }
+
+    /**
+     * @see #createEntry(Object)
+     */
+    public <T> CompletableFuture<T> createEntryAsync(T entity) {
+        byte[][] body = new byte[1][];
+        return write("create entry", Journal.Operation.CREATE, () -> body[0] = _codec.writeEntity(entity)).thenApply(response -> {
+            replicaCreated(body[0], response);
+            return entity;
+        });
+    }
+
+    /**
+     * Creates many entries in the collection
+     *
+     * @return The outcome of every entry, a failing entry does not stop the others
+     *
+     * @see #createEntries(Iterable, BulkOptions)
+     */
+    public BulkResult createEntries(Iterable<EntryData> entries) throws InterruptedException {
+        return createEntries(entries, new BulkOptions());
+    }
+
+    /**
+     * Creates many entries in the collection
+     *
+     * @param entries The entries to create
+     * @param options The chunk bounds and the number of chunks sent in parallel
+     * @return The outcome of every entry, a failing entry does not stop the others
+     *
+     * <p>
+     *     Note: The entries are split into chunks bounded by count and serialized size. The entries of a chunk are sent concurrently over the shared connection and at most {@link BulkOptions#getParallelism()} chunks are in flight, so only those chunks are held in memory at a time.
+     * </p>
+     *
+     * @see BulkResult
+     */
+    public BulkResult createEntries(Iterable<EntryData> entries, BulkOptions options) throws InterruptedException {
+        Semaphore permits = new Semaphore(options.getParallelism());
+        List<BulkResult.Item> items = Collections.synchronizedList(new ArrayList<>());
+        List<Chunked> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        long index = 0;
+
+        for (EntryData entryData : entries) {
+            byte[] body;
+            try {
+                body = _codec.write(new EntryDataPayload(entryData));
+            } catch (IOException e) {
+                items.add(new BulkResult.Item(index++, entryData, e));
+                continue;
+            }
+
+            if (!chunk.isEmpty() && (chunk.size() >= options.getChunkSize() || chunkBytes + body.length > options.getMaxChunkBytes())) {
+                dispatchChunk(chunk, permits, items);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
 
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryDataPayload(entryData)).getBytes(StandardCharsets.UTF_8));
+            chunk.add(new Chunked(index++, entryData, body));
+            chunkBytes += body.length;
         }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to create entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+        if (!chunk.isEmpty()) {
+            dispatchChunk(chunk, permits, items);
         }
 
-        return new Entry(_accessToken, _collectionName, entryData);
+        permits.acquire(options.getParallelism());
+        return new BulkResult(items);
+    }
+
+    /**
+     * @see #createEntries(Iterable, BulkOptions)
+     */
+    public BulkResult createEntries(Stream<EntryData> entries) throws InterruptedException {
+        return createEntries(entries, new BulkOptions());
+    }
+
+    /**
+     * @see #createEntries(Iterable, BulkOptions)
+     * <p>
+     *     Note: The stream is consumed lazily, so entries are only serialized once their chunk is about to be sent.
+     * </p>
+     */
+    public BulkResult createEntries(Stream<EntryData> entries, BulkOptions options) throws InterruptedException {
+        return createEntries(entries::iterator, options);
+    }
+
+    private void dispatchChunk(List<Chunked> chunk, Semaphore permits, List<BulkResult.Item> items) throws InterruptedException {
+        permits.acquire();
+
+        CompletableFuture<?>[] futures = chunk.stream().map(chunked -> write("create entry", Journal.Operation.CREATE, () -> chunked.body)
+                .whenComplete((response, throwable) -> {
+                    if (throwable == null) {
+                        replicaCreated(chunked.entryData, response);
+                    }
+                    items.add(new BulkResult.Item(chunked.index, chunked.entryData, unwrap(throwable)));
+                })
+        ).toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).whenComplete((ignored, throwable) -> permits.release());
+    }
+
+    private record Chunked(long index, EntryData entryData, byte[] body) {
+    }
+
+    static Throwable unwrap(Throwable throwable) {
+        while (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
     }
 
 
     /**
      *
-     * @return The entry with the specified ID
+     * @return The entry with the specified ID, or {@code null} if there is none
      *
      */
     public Entry getEntryById(String id) throws URISyntaxException, IOException, InterruptedException {
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .method("GET", HttpRequest.BodyPublishers.ofString(_mapper.writeValueAsString(new EntryFilterPayload(new EntryData() {{
-                    put("_id", id);
-                }}))))
-                .uri(new URI("https://api.marcsync.dev/v1/entries/" + _collectionName))
-                .header("accept", "application/json")
-                .header("authorization", _accessToken)
-                .header("content-type", "application/json")
-                .build();
+        EntryCache cache = _cache;
+        if (cache == null) {
+            return toEntry(read("get entry", idFilter(id)));
+        }
+
+        EntryData cached = cache.get(_collectionName, id);
+        if (cached != null) {
+            return new Entry(this, cached);
+        }
+
+        long generation = cache.generation();
+        return cacheEntry(cache, id, generation, toEntry(read("get entry", idFilter(id))));
+    }
+
+    /**
+     * @see #getEntryById(String)
+     */
+    public CompletableFuture<Entry> getEntryByIdAsync(String id) {
+        EntryCache cache = _cache;
+        if (cache == null) {
+            return readAsync("get entry", idFilter(id)).thenApply(this::toEntry);
+        }
+
+        EntryData cached = cache.get(_collectionName, id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new Entry(this, cached));
+        }
+
+        long generation = cache.generation();
+        return readAsync("get entry", idFilter(id)).thenApply(response -> cacheEntry(cache, id, generation, toEntry(response)));
+    }
+
+    /**
+     *
+     * @param id The ID of the entry
+     * @param type The record or POJO class to decode the entry into
+     * @return The entry with the specified ID, or {@code null} if there is none
+     *
+     * <p>
+     *     Note: The entry is decoded straight from the response through the cached codec of the class, without an intermediate {@link EntryData}. Typed reads are not served from the entry cache.
+     * </p>
+     *
+     */
+    public <T> T getEntryById(String id, Class<T> type) throws URISyntaxException, IOException {
+        try (Stream<T> entries = toTypedStream(readStream("get entry", idFilter(id)), type)) {
+            return entries.findFirst().orElse(null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @see #getEntryById(String, Class)
+     */
+    public <T> CompletableFuture<T> getEntryByIdAsync(String id, Class<T> type) {
+        return readAsync("get entry", idFilter(id)).thenApply(response -> {
+            try (Stream<T> entries = toTypedStream(new ByteArrayInputStream(response), type)) {
+                return entries.findFirst().orElse(null);
+            }
+        });
+    }
+
+    /**
+     *
+     * @param id The ID of the entry
+     * @param projection The fields to read
+     * @return The entry with the specified ID, holding only the fields of the projection and {@code _id}, or {@code null} if there is none
+     *
+     * <p>
+     *     Note: This method is useful if you only need a few fields of large entries, the other fields are skipped while the response is parsed. A cached entry is served projected, projected reads are not cached.
+     * </p>
+     *
+     * @see Projection
+     */
+    public Entry getEntryById(String id, Projection projection) throws URISyntaxException, IOException {
+        EntryCache cache = _cache;
+        EntryData cached = cache != null ? cache.get(_collectionName, id) : null;
+        if (cached != null) {
+            return new Entry(this, project(cached, projection));
+        }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        try (Stream<Entry> entries = toEntryStream(readStream("get entry", idFilter(id), projection), projection)) {
+            return entries.findFirst().orElse(null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to get entry: " + response.statusCode() + " " + response.body());
+    /**
+     * @see #getEntryById(String, Projection)
+     */
+    public CompletableFuture<Entry> getEntryByIdAsync(String id, Projection projection) {
+        EntryCache cache = _cache;
+        EntryData cached = cache != null ? cache.get(_collectionName, id) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new Entry(this, project(cached, projection)));
         }
 
-        return new Entry(_accessToken, _collectionName, new Gson().fromJson(response.body(), EntryResponse.class).entries[0]);
+        return readAsync("get entry", idFilter(id), projection).thenApply(response -> {
+            try (Stream<Entry> entries = toEntryStream(new ByteArrayInputStream(response), projection)) {
+                return entries.findFirst().orElse(null);
+            }
+        });
+    }
+
+    private static EntryData project(EntryData entryData, Projection projection) {
+        EntryData projected = new EntryData();
+        entryData.forEach((key, value) -> {
+            if (projection.includes(key)) {
+                projected.put(key, value);
+            }
+        });
+        return projected;
+    }
+
+    private Entry cacheEntry(EntryCache cache, Object id, long generation, Entry entry) {
+        if (entry == null) {
+            return null;
+        }
+        cache.put(_collectionName, id, entry.getValues(), generation);
+        return entry;
     }
 
     /**
@@ -176,22 +415,152 @@ public class Collection {
      *
      */
     public Entry[] getEntries(EntryData filters) throws IOException, InterruptedException, URISyntaxException {
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .method("GET", HttpRequest.BodyPublishers.ofString(_mapper.writeValueAsString(new EntryFilterPayload(filters))))
-                .uri(new URI("https://api.marcsync.dev/v1/entries/" + _collectionName))
-                .header("accept", "application/json")
-                .header("authorization", _accessToken)
-                .header("content-type", "application/json")
-                .build();
+        try (Stream<Entry> entries = toEntryStream(readStream("get entries", filters))) {
+            return entries.toArray(Entry[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * @see #getEntries(EntryData)
+     */
+    public CompletableFuture<Entry[]> getEntriesAsync(EntryData filters) {
+        return readAsync("get entries", filters).thenApply(this::toEntries);
+    }
+
+    /**
+     *
+     * @param filters The filter the entries have to match
+     * @param projection The fields to read
+     * @return The entries with the specified filter, holding only the fields of the projection and {@code _id}
+     *
+     * <p>
+     *     Note: This method is useful if you only need a few fields of large entries, e.g. to render a leaderboard. The other fields are skipped while the response is parsed, so they are never materialized.
+     * </p>
+     *
+     * @see Projection
+     */
+    public Entry[] getEntries(EntryData filters, Projection projection) throws IOException, URISyntaxException {
+        try (Stream<Entry> entries = toEntryStream(readStream("get entries", filters, projection), projection)) {
+            return entries.toArray(Entry[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @see #getEntries(EntryData, Projection)
+     */
+    public CompletableFuture<Entry[]> getEntriesAsync(EntryData filters, Projection projection) {
+        return readAsync("get entries", filters, projection).thenApply(response -> {
+            try (Stream<Entry> entries = toEntryStream(new ByteArrayInputStream(response), projection)) {
+                return entries.toArray(Entry[]::new);
+            }
+        });
+    }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to get entries: " + response.statusCode() + " " + response.body());
+    /**
+     *
+     * @param filters The filter the entries have to match
+     * @param type The record or POJO class to decode the entries into
+     * @return The entries with the specified filter
+     *
+     * <p>
+     *     Note: The entries are decoded straight from the response through the cached codec of the class, without an intermediate {@link EntryData}, so numeric fields are not boxed into {@code Double} first.
+     * </p>
+     *
+     * @see #getEntries(EntryData)
+     */
+    public <T> List<T> getEntries(EntryData filters, Class<T> type) throws IOException, URISyntaxException {
+        try (Stream<T> entries = toTypedStream(readStream("get entries", filters), type)) {
+            return entries.toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
+
+    /**
+     * @see #getEntries(EntryData, Class)
+     */
+    public <T> CompletableFuture<List<T>> getEntriesAsync(EntryData filters, Class<T> type) {
+        return readAsync("get entries", filters).thenApply(response -> {
+            try (Stream<T> entries = toTypedStream(new ByteArrayInputStream(response), type)) {
+                return entries.toList();
+            }
+        });
+    }
+
+    /**
+     *
+     * @return The entries with the specified filter, decoded one at a time while the response arrives
+     *
+     * <p>
+     *     Note: This method is useful if you want to process a large number of entries, as peak memory stays the same no matter how many entries match. Close the stream if you do not consume it entirely, read errors are thrown as {@link UncheckedIOException}.
+     * </p>
+     *
+     * @see #getEntries(EntryData)
+     */
+    public Stream<Entry> streamEntries(EntryData filters) throws IOException, URISyntaxException {
+        return toEntryStream(_transport.callStream("get entries", () -> getEntriesRequest(filters)));
+    }
+
+    /**
+     * @see #streamEntries(EntryData)
+     */
+    public CompletableFuture<Stream<Entry>> streamEntriesAsync(EntryData filters) {
+        return _transport.callStreamAsync("get entries", () -> getEntriesRequest(filters)).thenApply(this::toEntryStream);
+    }
+
+    /**
+     *
+     * @return The entries with the specified filter, fetched page by page while the stream is consumed
+     *
+     * @see #scan(EntryData, ScanOptions)
+     */
+    public Stream<Entry> scan(EntryData filters) {
+        return scan(filters, new ScanOptions());
+    }
+
+    /**
+     *
+     * @param filters The filter the entries have to match
+     * @param options The page size and the number of pages fetched ahead in parallel
+     * @return The entries with the specified filter, fetched page by page while the stream is consumed
+     *
+     * <p>
+     *     Note: This method is useful for exports and migrations of large collections, as at most {@link ScanOptions#getParallelism()} pages are held in memory. No page is requested before the stream is first consumed. Pages are requested with a {@code limit} and an {@code offset}, so entries created or deleted during the scan may shift the pages. Close the stream if you do not consume it entirely, read errors are thrown as {@link UncheckedIOException}.
+     * </p>
+     *
+     * @see ScanOptions
+     */
+    public Stream<Entry> scan(EntryData filters, ScanOptions options) {
+        int pageSize = options.getPageSize();
+        return new Scanner(options, page -> _transport.callAsync("scan entries", () -> scanRequest(filters, pageSize, page * pageSize)).thenApply(this::toEntries)).stream();
+    }
+
+    /**
+     *
+     * @param filters The filter of the entries to watch
+     * @param interval How often the entries are polled while they change
+     * @param listener Receives the added, changed and removed entries
+     * @return The watch, close it to stop polling
+     *
+     * <p>
+     *     Note: This replaces polling {@link #getEntries(EntryData)} and comparing the results yourself. Every entry matching the filter is reported as added by the first poll. Unchanged entries are recognized by a hash of their values and are never decoded, and the interval grows while nothing changes.
+     * </p>
+     *
+     * @see Watch
+     */
+    public Watch watch(EntryData filters, Duration interval, Watch.Listener listener) {
+        return new Watch(this, filters, interval, listener);
+    }
 
-        return Arrays.stream(new Gson().fromJson(response.body(), EntryResponse.class).entries).map(entryData -> new Entry(_accessToken, _collectionName, entryData)).toArray(Entry[]::new);
+    /**
+     * @return The response of a poll of a watch
+     */
+    CompletableFuture<byte[]> pollAsync(EntryData filters) {
+        return readAsync("watch entries", filters);
     }
 
     /**
@@ -203,23 +572,31 @@ public class Collection {
      *
      */
     public void deleteEntryById(String id) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("DELETE");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
+        Transport.await(deleteByIdAsync(id));
+    }
 
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(new Gson().toJson(new EntryFilterPayload(new EntryData() {{
-                put("_id", id);
-            }})).getBytes(StandardCharsets.UTF_8));
+    /**
+     * @see #deleteEntryById(String)
+     */
+    public CompletableFuture<Void> deleteEntryByIdAsync(String id) {
+        return deleteByIdAsync(id);
+    }
+
+    CompletableFuture<Void> deleteByIdAsync(Object id) {
+        WriteBehind writeBehind = _writeBehind;
+        if (writeBehind != null) {
+            writeBehind.discard(id);
         }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to delete entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+        invalidate(id);
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.deleted(id);
         }
+        return write("delete entry", Journal.Operation.DELETE, () -> filterBody(idFilter(id))).whenComplete((response, throwable) -> {
+            invalidate(id);
+            refreshReplicaOnFailure(response, throwable);
+        }).thenApply(response -> null);
     }
 
     /**
@@ -232,21 +609,32 @@ public class Collection {
      * @see EntryData
      */
     public void deleteEntries(EntryData filters) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("DELETE");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryFilterPayload(filters)).getBytes(StandardCharsets.UTF_8));
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.deletedMatching(filters);
+        }
+        try {
+            Transport.await(write("delete entries", Journal.Operation.DELETE, () -> filterBody(filters)));
+        } catch (Exception e) {
+            refreshReplica();
+            throw e;
+        } finally {
+            invalidateAll();
         }
+    }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to delete entries: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+    /**
+     * @see #deleteEntries(EntryData)
+     */
+    public CompletableFuture<Void> deleteEntriesAsync(EntryData filters) {
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.deletedMatching(filters);
         }
+        return write("delete entries", Journal.Operation.DELETE, () -> filterBody(filters)).whenComplete((response, throwable) -> {
+            invalidateAll();
+            refreshReplicaOnFailure(response, throwable);
+        }).thenApply(response -> null);
     }
 
     /**
@@ -257,23 +645,95 @@ public class Collection {
      * @see EntryData
      */
     public void updateEntryById(String id, EntryData entryData) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
+        updateById(id, entryData);
+    }
+
+    /**
+     * @see #updateEntryById(String, EntryData)
+     * <p>
+     *     Note: With write-behind enabled, the returned future completes once the merged update has been sent.
+     * </p>
+     */
+    public CompletableFuture<Void> updateEntryByIdAsync(String id, EntryData entryData) {
+        return updateByIdAsync(id, entryData);
+    }
+
+    /**
+     * Updates the entry, returning as soon as the update is buffered if write-behind is enabled.
+     */
+    void updateById(Object id, EntryData entryData) throws IOException {
+        updateCached(id, entryData);
+        replicaUpdated(id, entryData);
 
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryUpdatePayload(new EntryData() {{
-                put("_id", id);
-            }}, entryData)).getBytes(StandardCharsets.UTF_8));
+        WriteBehind writeBehind = _writeBehind;
+        if (writeBehind != null) {
+            writeBehind.update(id, entryData);
+            return;
         }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to update entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+        Transport.await(sendUpdate(id, entryData));
+    }
+
+    CompletableFuture<Void> updateByIdAsync(Object id, EntryData entryData) {
+        updateCached(id, entryData);
+        replicaUpdated(id, entryData);
+
+        WriteBehind writeBehind = _writeBehind;
+        if (writeBehind != null) {
+            return writeBehind.update(id, entryData);
         }
+
+        return sendUpdate(id, entryData);
+    }
+
+    /**
+     * Updates the entry only if its version field still holds the expected version, and increments the version with the update.
+     * <p>
+     *     Note: The update is sent right away, bypassing write-behind and the journal, since its outcome is needed.
+     * </p>
+     *
+     * @return The new version, completed exceptionally with a {@link VersionConflictException} if the entry was not updated, or with an {@link IOException} if the response does not tell whether it was
+     */
+    CompletableFuture<Object> updateIfVersionAsync(Object id, String versionField, Object version, EntryData entryData) {
+        Object nextVersion = version instanceof Number number ? number.longValue() + 1 : 1L;
+        EntryData filters = idFilter(id);
+        filters.put(versionField, version);
+        EntryData update = new EntryData();
+        update.putAll(entryData);
+        update.put(versionField, nextVersion);
+
+        return _transport.callAsync("update entry", () -> Journal.Operation.UPDATE.request(_transport, _collectionName, updateBody(filters, update))).thenApply(response -> {
+            long modified;
+            try {
+                modified = _codec.readCount(response, "modifiedEntries");
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            if (modified < 0) {
+                invalidate(id);
+                refreshReplica();
+                throw new CompletionException(new IOException("Failed to update entry " + id + " of " + _collectionName + ": the response does not tell whether it was still at version " + version));
+            }
+            if (modified == 0) {
+                invalidate(id);
+                throw new CompletionException(new VersionConflictException("Entry " + id + " of " + _collectionName + " is no longer at version " + version));
+            }
+
+            updateCached(id, update);
+            replicaUpdated(id, update);
+            return nextVersion;
+        });
+    }
+
+    private CompletableFuture<Void> sendUpdate(Object id, EntryData entryData) {
+        return write("update entry", Journal.Operation.UPDATE, () -> updateBody(idFilter(id), entryData)).whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                invalidate(id);
+                refreshReplica();
+            } else {
+                updateCached(id, entryData);
+            }
+        }).thenApply(response -> null);
     }
 
     /**
@@ -284,31 +744,737 @@ public class Collection {
      * @see EntryData
      */
     public void updateEntries(EntryData filters, EntryData entryData) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryUpdatePayload(filters, entryData)).getBytes(StandardCharsets.UTF_8));
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.updatedMatching(filters, entryData);
+        }
+        try {
+            Transport.await(write("update entries", Journal.Operation.UPDATE, () -> updateBody(filters, entryData)));
+        } catch (Exception e) {
+            refreshReplica();
+            throw e;
+        } finally {
+            invalidateAll();
         }
+    }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to update entries: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+    /**
+     * @see #updateEntries(EntryData, EntryData)
+     */
+    public CompletableFuture<Void> updateEntriesAsync(EntryData filters, EntryData entryData) {
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.updatedMatching(filters, entryData);
         }
+        return write("update entries", Journal.Operation.UPDATE, () -> updateBody(filters, entryData)).whenComplete((response, throwable) -> {
+            invalidateAll();
+            refreshReplicaOnFailure(response, throwable);
+        }).thenApply(response -> null);
     }
 
-    private static String readResponse(InputStream inputStream) throws IOException {
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
+    /**
+     * Deletes the entries with the specified IDs
+     *
+     * @return The outcome of every ID, a failing chunk does not stop the others
+     *
+     * @see #deleteEntriesByIds(java.util.Collection, BulkOptions)
+     */
+    public BulkResult deleteEntriesByIds(java.util.Collection<String> ids) throws InterruptedException {
+        return deleteEntriesByIds(ids, new BulkOptions());
+    }
+
+    /**
+     * Deletes the entries with the specified IDs
+     *
+     * @param ids The IDs of the entries to delete
+     * @param options The chunk bounds and the number of chunks sent in parallel
+     * @return The outcome of every ID, in input order, a failing chunk does not stop the others
+     *
+     * <p>
+     *     Note: The IDs are split into chunks bounded by count and serialized size, and every chunk is deleted with a single request filtering on {@code {"_id": {"$in": [...]}}}. Deleting an ID which does not exist counts as a success.
+     *     If the API rejects such a filter with status 400 or does not report the number of deleted entries, the chunk and every later chunk of this collection are deleted one ID per request. If the API reports a different number of deleted entries than the chunk holds, e.g. since some IDs do not exist, only that chunk is deleted again one ID per request. With the journal enabled, every ID is journaled as its own delete.
+     * </p>
+     *
+     * @see BulkResult
+     */
+    public BulkResult deleteEntriesByIds(java.util.Collection<String> ids, BulkOptions options) throws InterruptedException {
+        WriteBehind writeBehind = _writeBehind;
+        Replica replica = _replica;
+        List<ById> group = new ArrayList<>(ids.size());
+        long index = 0;
+        for (String id : ids) {
+            if (writeBehind != null) {
+                writeBehind.discard(id);
+            }
+            invalidate(id);
+            if (replica != null) {
+                replica.deleted(id);
+            }
+            group.add(new ById(index++, id));
+        }
+
+        List<BulkResult.Item> items = Collections.synchronizedList(new ArrayList<>());
+        return writeByIds(Journal.Operation.DELETE, Map.of(new EntryData(), group), null, options, items);
+    }
+
+    /**
+     * Updates the entries with the specified IDs
+     *
+     * @return The outcome of every ID, a failing chunk does not stop the others
+     *
+     * @see #updateEntriesByIds(Map, BulkOptions)
+     */
+    public BulkResult updateEntriesByIds(Map<String, EntryData> updates) throws InterruptedException {
+        return updateEntriesByIds(updates, new BulkOptions());
+    }
+
+    /**
+     * Updates the entries with the specified IDs
+     *
+     * @param updates The values to update, by the ID of the entry
+     * @param options The chunk bounds and the number of chunks sent in parallel
+     * @return The outcome of every ID, in input order, a failing chunk does not stop the others
+     *
+     * <p>
+     *     Note: IDs with equal updates are grouped and split into chunks bounded by count and serialized size, and every chunk is updated with a single request filtering on {@code {"_id": {"$in": [...]}}}.
+     *     If the API rejects such a filter with status 400 or does not report the number of modified entries, the chunk and every later chunk of this collection are updated one ID per request. If the API reports a different number of modified entries than the chunk holds, only that chunk is updated again one ID per request. With the journal enabled, every ID is journaled as its own update. Updates buffered by write-behind are sent first.
+     * </p>
+     *
+     * @see BulkResult
+     */
+    public BulkResult updateEntriesByIds(Map<String, EntryData> updates, BulkOptions options) throws InterruptedException {
+        WriteBehind writeBehind = _writeBehind;
+        if (writeBehind != null) {
+            writeBehind.flushAsync().handle((response, throwable) -> null).join();
+        }
+
+        List<BulkResult.Item> items = Collections.synchronizedList(new ArrayList<>());
+        Map<String, EntryData> updatesByKey = new LinkedHashMap<>();
+        Map<EntryData, List<ById>> groups = new LinkedHashMap<>();
+        long index = 0;
+        for (Map.Entry<String, EntryData> update : updates.entrySet()) {
+            String id = update.getKey();
+            String key;
+            try {
+                key = _codec.canonical(update.getValue());
+            } catch (IOException e) {
+                items.add(new BulkResult.Item(index++, id, update.getValue(), e));
+                continue;
+            }
+
+            EntryData entryData = updatesByKey.computeIfAbsent(key, ignored -> update.getValue());
+            groups.computeIfAbsent(entryData, ignored -> new ArrayList<>()).add(new ById(index++, id));
+            updateCached(id, entryData);
+            replicaUpdated(id, entryData);
+        }
+
+        return writeByIds(Journal.Operation.UPDATE, groups, updatesByKey, options, items);
+    }
+
+    /**
+     * Sends the writes of every group in chunks, at most {@link BulkOptions#getParallelism()} at a time.
+     *
+     * @param groups The IDs to write, by the update applied to them, the key is ignored for deletes
+     * @param updates The updates by their canonical form, or {@code null} for deletes
+     */
+    private BulkResult writeByIds(Journal.Operation operation, Map<EntryData, List<ById>> groups, Map<String, EntryData> updates, BulkOptions options, List<BulkResult.Item> items) throws InterruptedException {
+        Semaphore permits = new Semaphore(options.getParallelism());
+
+        for (Map.Entry<EntryData, List<ById>> group : groups.entrySet()) {
+            EntryData update = updates != null ? group.getKey() : null;
+            int updateBytes = 0;
+            if (update != null) {
+                try {
+                    updateBytes = _codec.write(new EntryDataPayload(update)).length;
+                } catch (IOException e) {
+                    for (ById byId : group.getValue()) {
+                        items.add(new BulkResult.Item(byId.index, byId.id, update, e));
+                    }
+                    continue;
+                }
+            }
+
+            List<ById> chunk = new ArrayList<>();
+            long chunkBytes = updateBytes;
+            for (ById byId : group.getValue()) {
+                int idBytes;
+                try {
+                    idBytes = _codec.elementBytes(byId.id);
+                } catch (IOException e) {
+                    items.add(new BulkResult.Item(byId.index, byId.id, update, e));
+                    continue;
+                }
+                if (!chunk.isEmpty() && (chunk.size() >= options.getChunkSize() || chunkBytes + idBytes > options.getMaxChunkBytes())) {
+                    dispatchIds(operation, update, chunk, permits, items);
+                    chunk = new ArrayList<>();
+                    chunkBytes = updateBytes;
+                }
+                chunk.add(byId);
+                chunkBytes += idBytes;
+            }
+            if (!chunk.isEmpty()) {
+                dispatchIds(operation, update, chunk, permits, items);
+            }
+        }
+
+        permits.acquire(options.getParallelism());
+        return new BulkResult(items);
+    }
+
+    private void dispatchIds(Journal.Operation operation, EntryData update, List<ById> chunk, Semaphore permits, List<BulkResult.Item> items) throws InterruptedException {
+        permits.acquire();
+
+        CompletableFuture<?> sent = _journal == null && _idSetFilters && chunk.size() > 1
+                ? sendIdSet(operation, update, chunk, items)
+                : sendEach(operation, update, chunk, items);
+        sent.whenComplete((ignored, throwable) -> permits.release());
+    }
+
+    /**
+     * Writes every entry of the chunk with a single request, falling back to {@link #sendEach} if the API rejects the filter or reports a different number of written entries than the chunk holds.
+     * <p>
+     *     Note: A rejected filter or a response without the number of written entries disables the single request for this collection once writing the IDs one by one works, since every chunk would otherwise pay for both.
+     * </p>
+     *
+     * @return Whether the entries were written
+     */
+    private CompletableFuture<Boolean> sendIdSet(Journal.Operation operation, EntryData update, List<ById> chunk, List<BulkResult.Item> items) {
+        String action = update != null ? "update entries" : "delete entries";
+        EntryData filters = new EntryData();
+        filters.put("_id", Map.of("$in", chunk.stream().map(ById::id).toList()));
+
+        return _transport.sendAsync(action, () -> operation.request(_transport, _collectionName, update != null ? updateBody(filters, update) : filterBody(filters))).handle((response, throwable) -> {
+            if (throwable == null && response.statusCode() == 400) {
+                return sendEachWithoutIdSets(operation, update, chunk, items);
+            }
+
+            Throwable error = unwrap(throwable);
+            if (error == null && response.statusCode() != 200) {
+                error = new IOException("Failed to " + action + ": " + response.statusCode() + " " + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            if (error == null) {
+                long count;
+                try {
+                    count = _codec.readCount(response.body(), update != null ? "modifiedEntries" : "deletedEntries");
+                } catch (IOException e) {
+                    count = -1;
+                }
+                if (count == -1) {
+                    return sendEachWithoutIdSets(operation, update, chunk, items);
+                }
+                if (count != chunk.size()) {
+                    // Missing entries, or a filter the API did not apply as a set of IDs, both of which writing the IDs one by one reports per entry.
+                    return sendEach(operation, update, chunk, items);
+                }
+            }
+            return CompletableFuture.completedFuture(written(chunk, update, error, items));
+        }).thenCompose(sent -> sent);
+    }
+
+    /**
+     * Writes the IDs one by one after the API did not apply a set of IDs as expected, and disables the set if that works, since the API does not support it then.
+     */
+    private CompletableFuture<Boolean> sendEachWithoutIdSets(Journal.Operation operation, EntryData update, List<ById> chunk, List<BulkResult.Item> items) {
+        return sendEach(operation, update, chunk, items).thenApply(succeeded -> {
+            if (succeeded) {
+                _idSetFilters = false;
+            }
+            return succeeded;
+        });
+    }
+
+    /**
+     * Writes every entry of the chunk with a request of its own, all of them concurrently.
+     *
+     * @return Whether any of the writes succeeded
+     */
+    private CompletableFuture<Boolean> sendEach(Journal.Operation operation, EntryData update, List<ById> chunk, List<BulkResult.Item> items) {
+        String action = update != null ? "update entry" : "delete entry";
+        List<CompletableFuture<Boolean>> sent = chunk.stream().map(byId -> write(action, operation, () -> update != null ? updateBody(idFilter(byId.id), update) : filterBody(idFilter(byId.id)))
+                .handle((response, throwable) -> written(List.of(byId), update, unwrap(throwable), items))
+        ).toList();
+
+        return CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).thenApply(ignored -> sent.stream().anyMatch(CompletableFuture::join));
+    }
+
+    /**
+     * Records the outcome of the written IDs.
+     *
+     * @return Whether the write succeeded
+     */
+    private boolean written(List<ById> chunk, EntryData update, Throwable error, List<BulkResult.Item> items) {
+        for (ById byId : chunk) {
+            if (error != null || update == null) {
+                invalidate(byId.id);
+            }
+            items.add(new BulkResult.Item(byId.index, byId.id, update, error));
+        }
+        if (error != null) {
+            refreshReplica();
+        }
+        return error == null;
+    }
+
+    private record ById(long index, Object id) {
+    }
+
+    /**
+     * Enables write-behind for {@link #updateEntryById(String, EntryData)} and the updates of entries of this collection.
+     *
+     * @param options The window and the number of pending fields after which the updates are sent
+     * @return This collection
+     *
+     * <p>
+     *     Note: Updates of the same entry are merged into a single request, the last value written to a key wins. The blocking update methods return as soon as the update is buffered, call {@link #flush()} or {@link #close()} to make sure everything has been sent.
+     * </p>
+     */
+    public synchronized Collection enableWriteBehind(WriteBehindOptions options) {
+        if (_writeBehind == null) {
+            _writeBehind = new WriteBehind(options, _client.scheduler(), this::sendUpdate);
+        }
+        return this;
+    }
+
+    /**
+     * Enables a durable local journal for the creates, updates and deletes of entries of this collection.
+     *
+     * @param options The directory of the journal, the size of its segments and how failed sends are retried
+     * @return This collection
+     *
+     * @throws IOException If the journal cannot be read or is in use by another process
+     *
+     * <p>
+     *     Note: Writes complete as soon as they are on disk and are sent to the API in order by a background sender, which retries them while the API is unreachable or answers with 408, 429 or a 5xx status.
+     *     Writes left in the journal when the process stopped are sent once the journal of the collection is enabled again, a write which was being sent at that moment may be sent twice.
+     *     A write the API rejects is dropped and thrown by the next {@link #flush()}. Call {@link #flush()} to wait until every write has been sent.
+     * </p>
+     */
+    public synchronized Collection enableJournal(JournalOptions options) throws IOException {
+        if (_journal == null) {
+            _journal = new Journal(options, _transport, _collectionName, _client.scheduler(), this::journalRejected);
+        }
+        return this;
+    }
+
+    /**
+     * Forgets the cached and replicated entries after the API rejected a journaled write, since the write has already been applied to them.
+     */
+    private void journalRejected() {
+        invalidateAll();
+        refreshReplica();
+    }
+
+    /**
+     * Sends the updates buffered by write-behind and the writes in the journal and waits for them.
+     *
+     * @throws IOException If an update sent in the background since the last flush failed
+     */
+    public void flush() throws IOException {
+        WriteBehind writeBehind = _writeBehind;
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+
+        Journal journal = _journal;
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Sends the updates buffered by write-behind and disables it, and closes the journal, as well as the default client of a collection created from the access token alone once no other collection uses it.
+     *
+     * @throws IOException If an update sent in the background since the last flush failed
+     *
+     * <p>
+     *     Note: Writes in the journal which have not been sent yet are kept on disk and sent once the journal is enabled again.
+     * </p>
+     */
+    @Override
+    public void close() throws IOException {
+        WriteBehind writeBehind;
+        Journal journal;
+        String sharedAccessToken;
+        synchronized (this) {
+            writeBehind = _writeBehind;
+            _writeBehind = null;
+            journal = _journal;
+            sharedAccessToken = _sharedAccessToken;
+            _sharedAccessToken = null;
+        }
+        try {
+            if (writeBehind != null) {
+                writeBehind.flush();
+            }
+        } finally {
+            if (journal != null) {
+                synchronized (this) {
+                    _journal = null;
+                }
+                journal.close();
+            }
+            if (sharedAccessToken != null) {
+                Client.release(sharedAccessToken, _client);
+            }
+        }
+    }
+
+    /**
+     * Enables a read-through cache for {@link #getEntryById(String)} of this collection.
+     *
+     * @param options The maximum number of cached entries and how long they are served
+     * @return This collection
+     *
+     * <p>
+     *     Note: Updates and deletes made through this collection and its entries keep the cache consistent with our own writes. This replaces the cache shared through {@link ClientOptions#setCache(CacheOptions)} for this collection.
+     * </p>
+     */
+    public Collection enableCache(CacheOptions options) {
+        _cache = new EntryCache(options);
+        return this;
+    }
+
+    /**
+     * @return The hit and miss statistics of the entry cache, or {@code null} if it is disabled
+     */
+    public CacheStats getCacheStats() {
+        EntryCache cache = _cache;
+        return cache != null ? cache.stats() : null;
+    }
+
+    /**
+     * Loads the collection into an in-memory replica which answers equality filters locally.
+     *
+     * @param options The fields to index and how often the replica is refreshed
+     * @return The replica, loaded
+     *
+     * <p>
+     *     Note: This is useful for small, read-heavy collections such as configuration or leaderboards. Writes made through this collection and its entries are applied to the replica immediately, if a write fails the replica is loaded again. Replicating the collection again closes the previous replica.
+     *     If {@link ReplicaOptions#setSnapshotFile(java.nio.file.Path)} points to a valid snapshot, the replica is returned right after loading it and is refreshed from the API in the background.
+     * </p>
+     *
+     * @see Replica
+     */
+    public Replica replicate(ReplicaOptions options) throws IOException {
+        return Transport.await(replicateAsync(options));
+    }
+
+    /**
+     * @see #replicate(ReplicaOptions)
+     */
+    public CompletableFuture<Replica> replicateAsync(ReplicaOptions options) {
+        Replica replica = new Replica(this, options);
+        Replica previous;
+        synchronized (this) {
+            previous = _replica;
+            _replica = replica;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+
+        if (replica.loadSnapshot()) {
+            replica.refreshAsync();
+            return CompletableFuture.completedFuture(replica);
+        }
+
+        return replica.refreshAsync().whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                replica.close();
+            }
+        }).thenApply(ignored -> replica);
+    }
+
+    synchronized void detach(Replica replica) {
+        if (_replica == replica) {
+            _replica = null;
+        }
+    }
+
+    /**
+     * @return Every entry of the collection, for loading a replica
+     */
+    CompletableFuture<List<EntryData>> readAllAsync() {
+        return readAsync("replicate collection", new EntryData()).thenApply(response -> {
+            try (Stream<Entry> entries = toEntryStream(new ByteArrayInputStream(response))) {
+                return entries.map(Entry::getValues).toList();
+            }
+        });
+    }
+
+    /**
+     * @return An empty entry in the representation read from the API, i.e. compact if compact entries are enabled
+     */
+    EntryData newEntryData() {
+        return _schema != null ? new CompactEntryData(_schema) : new EntryData();
+    }
+
+    /**
+     * Applies a created entry under the {@code _id} it was created with or the one the API assigned to it, or loads the replica again if neither is known, e.g. for a journaled create.
+     *
+     * @param response The response of the create, or {@code null} if it was journaled
+     */
+    private void replicaCreated(EntryData entryData, byte[] response) {
+        Replica replica = _replica;
+        if (replica == null) {
+            return;
+        }
+
+        Object id = entryData.get("_id");
+        if (id == null && response != null) {
+            try {
+                id = _codec.readString(response, "entryId");
+            } catch (IOException ignored) {
+                // Treated like a response without an ID.
+            }
+        }
+        if (id == null) {
+            replica.refreshAsync();
+            return;
+        }
+
+        EntryData created = entryData;
+        if (!id.equals(entryData.get("_id"))) {
+            created = (EntryData) entryData.clone();
+            created.put("_id", id);
+        }
+        replica.created(created);
+    }
+
+    /**
+     * Applies the creation of an entry from its serialized payload, e.g. of a record or POJO.
+     */
+    private void replicaCreated(byte[] payload, byte[] response) {
+        Replica replica = _replica;
+        if (replica != null) {
+            try {
+                replicaCreated(_codec.readPayloadData(payload), response);
+            } catch (IOException e) {
+                replica.refreshAsync();
+            }
+        }
+    }
+
+    private void replicaUpdated(Object id, EntryData entryData) {
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.updated(id, entryData);
+        }
+    }
+
+    /**
+     * Loads the replica again after a failed write, since the write has already been applied to it.
+     */
+    private void refreshReplica() {
+        Replica replica = _replica;
+        if (replica != null) {
+            replica.refreshAsync();
+        }
+    }
+
+    private void refreshReplicaOnFailure(Object response, Throwable throwable) {
+        if (throwable != null) {
+            refreshReplica();
+        }
+    }
+
+    private void updateCached(Object id, EntryData entryData) {
+        EntryCache cache = _cache;
+        if (cache != null) {
+            cache.update(_collectionName, id, entryData);
+        }
+    }
+
+    private void invalidate(Object id) {
+        EntryCache cache = _cache;
+        if (cache != null) {
+            cache.invalidate(_collectionName, id);
+        }
+    }
+
+    private void invalidateAll() {
+        EntryCache cache = _cache;
+        if (cache != null) {
+            cache.invalidateAll(_collectionName);
+        }
+    }
+
+    Client client() {
+        return _client;
+    }
+
+    static EntryData idFilter(Object id) {
+        EntryData filter = new EntryData();
+        filter.put("_id", id);
+        return filter;
+    }
+
+    private HttpRequest dropRequest() throws URISyntaxException {
+        return _transport.request("DELETE", "/v0/collection/" + _collectionName, null);
+    }
+
+    private HttpRequest setNameRequest(String name) throws URISyntaxException, IOException {
+        byte[] body = _codec.write(new CollectionUpdatePayload(name));
+        return _transport.request("PUT", "/v0/collection/" + _collectionName, body);
+    }
+
+    /**
+     * Sends a write, or appends it to the journal if it is enabled, in which case the future completes once the write is on disk.
+     *
+     * @return The body of the response, or {@code null} if the write was journaled
+     */
+    private CompletableFuture<byte[]> write(String action, Journal.Operation operation, BodySupplier body) {
+        Journal journal = _journal;
+        if (journal == null) {
+            return _transport.callAsync(action, () -> operation.request(_transport, _collectionName, body.get()));
+        }
+
+        try {
+            return journal.append(operation, body.get()).thenApply(ignored -> null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodySupplier {
+        byte[] get() throws IOException;
+    }
+
+    private byte[] entryBody(EntryData entryData) throws IOException {
+        return _codec.write(new EntryDataPayload(entryData));
+    }
+
+    /**
+     * Reads the entries matching the filter, sharing the request with identical concurrent reads if coalescing is enabled.
+     */
+    private byte[] read(String action, EntryData filters) throws URISyntaxException, IOException {
+        return read(action, filters, null);
+    }
+
+    /**
+     * @param projection The fields to read, only sent to the API if server-side projections are enabled, or {@code null} to read every field
+     */
+    private byte[] read(String action, EntryData filters, Projection projection) throws URISyntaxException, IOException {
+        SingleFlight singleFlight = _client.singleFlight();
+        if (singleFlight == null) {
+            return _transport.call(action, () -> getEntriesRequest(filters, projection));
+        }
+
+        return Transport.await(readAsync(action, filters, projection));
+    }
+
+    private CompletableFuture<byte[]> readAsync(String action, EntryData filters) {
+        return readAsync(action, filters, null);
+    }
+
+    private CompletableFuture<byte[]> readAsync(String action, EntryData filters, Projection projection) {
+        SingleFlight singleFlight = _client.singleFlight();
+        if (singleFlight == null) {
+            return _transport.callAsync(action, () -> getEntriesRequest(filters, projection));
+        }
+
+        String key;
+        try {
+            key = _collectionName + '\n' + _codec.canonical(filters);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (projection != null && _client.serverProjection()) {
+            key += '\n' + String.join(",", new TreeSet<>(projection.getFields()));
+        }
+        return singleFlight.run(key, () -> _transport.callAsync(action, () -> getEntriesRequest(filters, projection)));
+    }
+
+    /**
+     * Reads the entries matching the filter as a stream, which is only buffered if the read is shared with identical concurrent reads.
+     */
+    private InputStream readStream(String action, EntryData filters) throws URISyntaxException, IOException {
+        return readStream(action, filters, null);
+    }
+
+    private InputStream readStream(String action, EntryData filters, Projection projection) throws URISyntaxException, IOException {
+        if (_client.singleFlight() == null) {
+            return _transport.callStream(action, () -> getEntriesRequest(filters, projection));
+        }
+
+        return new ByteArrayInputStream(read(action, filters, projection));
+    }
+
+    private HttpRequest getEntriesRequest(EntryData filters) throws URISyntaxException, IOException {
+        return getEntriesRequest(filters, null);
+    }
+
+    private HttpRequest getEntriesRequest(EntryData filters, Projection projection) throws URISyntaxException, IOException {
+        byte[] body = projection != null && _client.serverProjection()
+                ? _codec.write(new EntryFilterPayload(filters), projection)
+                : _codec.write(new EntryFilterPayload(filters));
+        return _transport.request("GET", "/v1/entries/" + _collectionName, body);
+    }
+
+    private HttpRequest scanRequest(EntryData filters, int limit, long offset) throws URISyntaxException, IOException {
+        return _transport.request("GET", "/v1/entries/" + _collectionName, _codec.write(new EntryFilterPayload(filters), limit, offset));
+    }
+
+    private byte[] filterBody(EntryData filters) throws IOException {
+        return _codec.write(new EntryFilterPayload(filters));
+    }
+
+    private byte[] updateBody(EntryData filters, EntryData entryData) throws IOException {
+        return _codec.write(new EntryUpdatePayload(filters, entryData));
+    }
+
+    /**
+     * @return The first entry of the response, or {@code null} if it has none
+     */
+    private Entry toEntry(byte[] response) {
+        if (_schema != null) {
+            try (Stream<Entry> entries = toEntryStream(new ByteArrayInputStream(response))) {
+                return entries.findFirst().orElse(null);
+            }
+        }
+
+        try {
+            EntryData[] entries = _codec.readEntryResponse(response).entries;
+            return entries != null && entries.length > 0 ? new Entry(this, entries[0]) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Entry[] toEntries(byte[] response) {
+        try (Stream<Entry> entries = toEntryStream(new ByteArrayInputStream(response))) {
+            return entries.toArray(Entry[]::new);
+        }
+    }
+
+    private <T> Stream<T> toTypedStream(InputStream body, Class<T> type) {
+        return new EntryReader<>(body, _codec.adapter(type)::read).stream();
+    }
+
+    private Stream<Entry> toEntryStream(InputStream body) {
+        return toEntryStream(body, null);
+    }
+
+    /**
+     * @param projection The fields to decode, the other fields are skipped, or {@code null} to decode every field
+     */
+    private Stream<Entry> toEntryStream(InputStream body, Projection projection) {
+        return new EntryReader<>(body, entryDecoder(projection)).stream().map(entryData -> new Entry(this, entryData));
+    }
+
+    /**
+     * @param projection The fields to decode, the other fields are skipped, or {@code null} to decode every field
+     * @return The decoder of the entries of a response, into compact entries if they are enabled
+     */
+    EntryReader.ElementDecoder<EntryData> entryDecoder(Projection projection) {
+        EntrySchema schema = _schema;
+        if (schema != null) {
+            return reader -> _codec.readCompactEntryData(reader, schema, projection);
+        }
+        if (projection != null) {
+            return reader -> _codec.readEntryData(reader, projection);
         }
-        return response.toString();
+        return _codec::readEntryData;
     }
 }
@@ -0,0 +1,148 @@
+package MarcSync;
+
+import MarcSync.classes.CompressionOptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses request bodies and decompresses response bodies according to their {@code content-encoding}.
+ * <p>
+ *     Note: Streamed responses are inflated while they are read, so a large response is never held in memory, compressed or not.
+ * </p>
+ */
+final class Compression {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final CompressionOptions _options;
+
+    Compression(CompressionOptions options) {
+        _options = options;
+    }
+
+    /**
+     * @return Whether the body is large enough to be sent gzipped
+     */
+    boolean shouldCompress(byte[] body) {
+        return _options.getRequestThreshold() >= 0 && body.length >= _options.getRequestThreshold();
+    }
+
+    byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new LeveledGZIPOutputStream(out, _options.getLevel())) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return A handler reading the whole body, decompressed if the server compressed it
+     */
+    static HttpResponse.BodyHandler<byte[]> ofByteArray() {
+        return info -> {
+            String encoding = encoding(info);
+            if (encoding == null) {
+                return HttpResponse.BodySubscribers.ofByteArray();
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+                try (InputStream in = inflate(new ByteArrayInputStream(body), encoding)) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    /**
+     * @return A handler streaming the body, inflated while it is read if the server compressed it
+     */
+    static HttpResponse.BodyHandler<InputStream> ofInputStream() {
+        return info -> {
+            String encoding = encoding(info);
+            if (encoding == null) {
+                return HttpResponse.BodySubscribers.ofInputStream();
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), body -> new LazyInflaterStream(body, encoding));
+        };
+    }
+
+    /**
+     * @return {@code "gzip"} or {@code "deflate"}, or {@code null} if the body is not compressed
+     */
+    private static String encoding(HttpResponse.ResponseInfo info) {
+        String encoding = info.headers().firstValue("content-encoding").orElse(null);
+        if (encoding == null) {
+            return null;
+        }
+        encoding = encoding.trim().toLowerCase(Locale.ROOT);
+        return encoding.equals("gzip") || encoding.equals("x-gzip") || encoding.equals("deflate") ? encoding : null;
+    }
+
+    private static InputStream inflate(InputStream body, String encoding) throws IOException {
+        return encoding.equals("deflate") ? new InflaterInputStream(body) : new GZIPInputStream(body, 8192);
+    }
+
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+        LeveledGZIPOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * Creates the inflating stream on first read, since {@link GZIPInputStream} reads the gzip header in its constructor and the body subscriber must not block.
+     */
+    private static final class LazyInflaterStream extends InputStream {
+        private final InputStream _body;
+        private final String _encoding;
+        private InputStream _inflater;
+
+        LazyInflaterStream(InputStream body, String encoding) {
+            _body = body;
+            _encoding = encoding;
+        }
+
+        private InputStream inflater() throws IOException {
+            if (_inflater == null) {
+                _inflater = inflate(_body, _encoding);
+            }
+            return _inflater;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inflater().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return inflater().read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return _inflater != null ? _inflater.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (_inflater != null) {
+                _inflater.close();
+            } else {
+                _body.close();
+            }
+        }
+    }
+}
@@ -1,31 +1,33 @@
 package MarcSync;
 
 import MarcSync.classes.EntryData;
-import MarcSync.classes.EntryFilterPayload;
-import MarcSync.classes.EntryUpdatePayload;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.*;
-import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class Entry {
 
-    private final String _accessToken;
-    private final String _collectionName;
+    private final Collection _collection;
     private final EntryData _entryData;
-    private final ObjectMapper _mapper;
+    private final Set<String> _changed = new LinkedHashSet<>();
 
+    /**
+     * @see Client#getCollection(String)
+     *
+     * <p>
+     *     Note: An entry cannot be closed, so an entry created this way uses a client of its own rather than holding on to a shared one. Use {@link Collection#getEntryById(String)} to reuse the connections of a client.
+     * </p>
+     */
     public Entry(String accessToken, String collectionName, EntryData entryData) {
-        _accessToken = accessToken;
-        _collectionName = collectionName;
-        _entryData = entryData;
+        this(new Client(accessToken).getCollection(collectionName), entryData);
+    }
 
-        _mapper = new ObjectMapper();
-        _mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        _mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    Entry(Collection collection, EntryData entryData) {
+        _collection = collection;
+        _entryData = entryData;
     }
 
     /**
@@ -65,7 +67,7 @@ public class Entry {
      *
      */
     public String getCollectionName() {
-        return _collectionName;
+        return _collection.getName();
     }
 
     /**
@@ -81,27 +83,20 @@ public class Entry {
      *
      */
     public EntryData updateValue(String key, Object value) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryUpdatePayload(new EntryData() {{
-                put("_id", _entryData.get("_id"));
-            }}, new EntryData() {{
-                put(key, value);
-            }})).getBytes(StandardCharsets.UTF_8));
-        }
+        EntryData entryData = new EntryData();
+        entryData.put(key, value);
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to update entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+        return updateValues(entryData);
+    }
 
-        return _entryData;
+    /**
+     * @see #updateValue(String, Object)
+     */
+    public CompletableFuture<EntryData> updateValueAsync(String key, Object value) {
+        EntryData entryData = new EntryData();
+        entryData.put(key, value);
+
+        return updateValuesAsync(entryData);
     }
 
     /**
@@ -118,27 +113,133 @@ public class Entry {
      *
      */
     public EntryData updateValues(EntryData entryData) throws URISyntaxException, IOException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryUpdatePayload(new EntryData() {{
-                put("_id", _entryData.get("_id"));
-            }}, entryData)).getBytes(StandardCharsets.UTF_8));
-        }
+        _collection.updateById(_entryData.get("_id"), entryData);
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to update entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+        return applied(entryData);
+    }
+
+    /**
+     * @see #updateValues(EntryData)
+     */
+    public CompletableFuture<EntryData> updateValuesAsync(EntryData entryData) {
+        return _collection.updateByIdAsync(_entryData.get("_id"), entryData).thenApply(response -> applied(entryData));
+    }
 
+    /**
+     * Applies values which have been sent to the local entry, they are no longer changed.
+     */
+    private synchronized EntryData applied(EntryData entryData) {
+        _entryData.putAll(entryData);
+        _changed.removeAll(entryData.keySet());
         return _entryData;
     }
 
+    /**
+     *
+     * @param key The key of the value to set
+     * @param value The value to set
+     * @return This entry
+     *
+     * <p>
+     * Note: This method only changes the local entry and remembers the key, call {@link #save()} to send every changed value in a single update.
+     * </p>
+     *
+     */
+    public synchronized Entry set(String key, Object value) {
+        _entryData.put(key, value);
+        _changed.add(key);
+        return this;
+    }
+
+    /**
+     *
+     * @return Whether values have been set since the entry was read or last saved
+     *
+     */
+    public synchronized boolean isDirty() {
+        return !_changed.isEmpty();
+    }
+
+    /**
+     *
+     * @return The keys of the values set since the entry was read or last saved
+     *
+     */
+    public synchronized Set<String> getChangedKeys() {
+        return Set.copyOf(_changed);
+    }
+
+    /**
+     *
+     * Sends the values set since the entry was read or last saved as a single update
+     * <p>
+     *     Note: Does nothing if no value has been set. If the update fails, the values stay marked as changed.
+     * </p>
+     *
+     */
+    public void save() throws IOException {
+        Transport.await(saveAsync());
+    }
+
+    /**
+     * @see #save()
+     */
+    public CompletableFuture<Void> saveAsync() {
+        return saveAsync(null);
+    }
+
+    /**
+     *
+     * Sends the values set since the entry was read or last saved as a single update, if nobody else updated the entry in between
+     *
+     * @param versionField The field holding the version of the entry, which is incremented with the update
+     *
+     * @throws VersionConflictException If the version field of the stored entry no longer holds the version of this entry
+     * @throws IOException If the request failed or the response does not carry the number of modified entries, in which case the outcome is unknown and the entry stays dirty
+     *
+     * <p>
+     *     Note: The update only applies if the stored entry still has the version of this entry. If the entry has no version yet, the first save sets it to 1.
+     * </p>
+     *
+     */
+    public void save(String versionField) throws IOException {
+        Transport.await(saveAsync(versionField));
+    }
+
+    /**
+     * @see #save(String)
+     */
+    public CompletableFuture<Void> saveAsync(String versionField) {
+        EntryData changes = new EntryData();
+        Object version;
+        synchronized (this) {
+            if (_changed.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            for (String key : _changed) {
+                changes.put(key, _entryData.get(key));
+            }
+            _changed.clear();
+            version = versionField != null ? _entryData.get(versionField) : null;
+        }
+
+        CompletableFuture<Void> saved = versionField == null
+                ? _collection.updateByIdAsync(_entryData.get("_id"), changes)
+                : _collection.updateIfVersionAsync(_entryData.get("_id"), versionField, version, changes).thenAccept(nextVersion -> {
+                    synchronized (this) {
+                        _entryData.put(versionField, nextVersion);
+                    }
+                });
+
+        return saved.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                synchronized (this) {
+                    _changed.addAll(changes.keySet());
+                }
+            }
+        });
+    }
+
     /**
      *
      * Deletes the entry
@@ -148,22 +249,13 @@ public class Entry {
      *
      */
     public void delete() throws IOException, URISyntaxException {
-        URL url = new URI("https://api.marcsync.dev/v1/entries/" + _collectionName).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("DELETE");
-        connection.setRequestProperty("accept", "application/json");
-        connection.setRequestProperty("authorization", _accessToken);
-        connection.setRequestProperty("content-type", "application/json");
-        connection.setDoOutput(true);
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            outputStream.write(_mapper.writeValueAsString(new EntryFilterPayload(new EntryData() {{
-                put("_id", _entryData.get("_id"));
-            }})).getBytes(StandardCharsets.UTF_8));
-        }
+        Transport.await(deleteAsync());
+    }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to delete entry: " + connection.getResponseCode() + " " + connection.getResponseMessage());
-        }
+    /**
+     * @see #delete()
+     */
+    public CompletableFuture<Void> deleteAsync() {
+        return _collection.deleteByIdAsync(_entryData.get("_id"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package MarcSync;
+
+import MarcSync.classes.CacheOptions;
+import MarcSync.classes.CacheStats;
+import MarcSync.classes.EntryData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded read-through cache of entries keyed by collection and {@code _id}, evicting the least recently used entry first.
+ * <p>
+ *     Note: Every local mutation bumps a generation counter. A fetch which started before a mutation does not populate the cache, so a slow read never overwrites our own write.
+ * </p>
+ */
+final class EntryCache {
+
+    private final long _ttlNanos;
+    private final LinkedHashMap<Key, Cached> _entries;
+
+    private long _generation = 0;
+    private long _hits = 0;
+    private long _misses = 0;
+    private long _evictions = 0;
+
+    EntryCache(CacheOptions options) {
+        _ttlNanos = options.getTtl().toNanos();
+        _entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                if (size() > options.getMaxSize()) {
+                    _evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return A copy of the cached values, or {@code null} if the entry is not cached or expired
+     */
+    synchronized EntryData get(String collectionName, Object id) {
+        Key key = new Key(collectionName, id);
+        Cached cached = _entries.get(key);
+
+        if (cached == null || System.nanoTime() - cached.storedAt > _ttlNanos) {
+            if (cached != null) {
+                _entries.remove(key);
+            }
+            _misses++;
+            return null;
+        }
+
+        _hits++;
+        return copy(cached.data);
+    }
+
+    /**
+     * @return The generation to pass to {@link #put(String, Object, EntryData, long)} once the fetch started now completes
+     */
+    synchronized long generation() {
+        return _generation;
+    }
+
+    synchronized void put(String collectionName, Object id, EntryData entryData, long generation) {
+        if (generation == _generation) {
+            _entries.put(new Key(collectionName, id), new Cached(copy(entryData), System.nanoTime()));
+        }
+    }
+
+    /**
+     * Applies a local update to the cached values, keeping them consistent with our own write.
+     */
+    synchronized void update(String collectionName, Object id, EntryData entryData) {
+        _generation++;
+        Cached cached = _entries.get(new Key(collectionName, id));
+        if (cached != null) {
+            cached.data.putAll(entryData);
+        }
+    }
+
+    synchronized void invalidate(String collectionName, Object id) {
+        _generation++;
+        _entries.remove(new Key(collectionName, id));
+    }
+
+    synchronized void invalidateAll(String collectionName) {
+        _generation++;
+        _entries.keySet().removeIf(key -> key.collectionName.equals(collectionName));
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(_hits, _misses, _evictions, _entries.size());
+    }
+
+    private static EntryData copy(EntryData entryData) {
+        return (EntryData) entryData.clone();
+    }
+
+    private record Key(String collectionName, Object id) {
+    }
+
+    private record Cached(EntryData data, long storedAt) {
+    }
+}
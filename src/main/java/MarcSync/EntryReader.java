@@ -0,0 +1,122 @@
+package MarcSync;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the {@code entries} array of an entries response one element at a time, so only the current element is held in memory.
+ */
+final class EntryReader<T> implements Iterator<T>, Closeable {
+
+    @FunctionalInterface
+    interface ElementDecoder<T> {
+        T decode(JsonReader reader) throws IOException;
+    }
+
+    private final JsonReader _reader;
+    private final ElementDecoder<T> _decoder;
+    private boolean _started = false;
+    private boolean _done = false;
+
+    EntryReader(InputStream body, ElementDecoder<T> decoder) {
+        _reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        _decoder = decoder;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (_done) {
+            return false;
+        }
+
+        try {
+            if (!_started) {
+                _started = true;
+                if (!seekEntries()) {
+                    close();
+                    return false;
+                }
+            }
+
+            if (_reader.hasNext()) {
+                return true;
+            }
+
+            _reader.endArray();
+            while (_reader.hasNext()) {
+                _reader.nextName();
+                _reader.skipValue();
+            }
+            _reader.endObject();
+            close();
+            return false;
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return _decoder.decode(_reader);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The remaining elements as a lazy stream which closes the response body when it is closed
+     * <p>
+     *     Note: The stream contains whatever the decoder returns, so an element is {@code null} for a JSON {@code null} or one the decoder skipped.
+     * </p>
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        _done = true;
+        try {
+            _reader.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Moves the reader to the first element of the {@code entries} array, skipping every other field.
+     *
+     * @return Whether the response contains an {@code entries} array
+     */
+    private boolean seekEntries() throws IOException {
+        _reader.beginObject();
+        while (_reader.hasNext()) {
+            if (_reader.nextName().equals("entries") && _reader.peek() == JsonToken.BEGIN_ARRAY) {
+                _reader.beginArray();
+                return true;
+            }
+            _reader.skipValue();
+        }
+        _reader.endObject();
+        return false;
+    }
+}
@@ -0,0 +1,511 @@
+package MarcSync;
+
+import MarcSync.classes.JournalOptions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of the writes of a collection, which are acknowledged once they are on disk and sent to the API in order in the background.
+ * <p>
+ *     Note: Records are appended to segment files named after their first sequence number. A single writer thread writes every record queued while the previous batch was forced to disk with one {@code write} and one {@code force}, so concurrent writers share a sync.
+ *     Every record carries its length, a CRC32C, its sequence number, the operation and the request body. The sequence number of the last record sent is kept in a checkpoint file, and segments are deleted once every record in them has been sent.
+ *     On startup, the records after the checkpoint are read back up to the first torn or corrupt record and sent again, so a write may reach the API twice if the process dies while it is being sent.
+ * </p>
+ */
+final class Journal implements AutoCloseable {
+
+    enum Operation {
+        CREATE("POST", "/v0/entries/", "create entry"),
+        UPDATE("PUT", "/v1/entries/", "update entries"),
+        DELETE("DELETE", "/v1/entries/", "delete entries");
+
+        private final String _method;
+        private final String _path;
+        private final String _action;
+
+        Operation(String method, String path, String action) {
+            _method = method;
+            _path = path;
+            _action = action;
+        }
+
+        HttpRequest request(Transport transport, String collectionName, byte[] body) throws URISyntaxException {
+            return transport.request(_method, _path + collectionName, body);
+        }
+    }
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 1;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Record CLOSE = new Record(-1, null, null, null);
+
+    private final JournalOptions _options;
+    private final Path _directory;
+    private final Transport _transport;
+    private final String _collectionName;
+    private final ScheduledExecutorService _scheduler;
+    private final Runnable _onRejected;
+    private final FileChannel _checkpoint;
+    private final FileLock _lock;
+    private final List<Long> _segments = new ArrayList<>();
+    private final BlockingQueue<Record> _appended = new LinkedBlockingQueue<>();
+    private final Thread _writer;
+    private FileChannel _segment;
+
+    private final ArrayDeque<Record> _unsent = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> _waiters = new ArrayDeque<>();
+    private long _nextSeq = 1;
+    private long _sentSeq;
+    private boolean _sending = false;
+    private boolean _closed = false;
+    private int _retries = 0;
+    private CompletableFuture<?> _inFlight;
+    private Throwable _failure;
+
+    /**
+     * Opens the journal of the collection and starts sending the records which were not sent before the last shutdown.
+     *
+     * @param onRejected Called after the API rejected a write which was already acknowledged
+     * @throws IOException If the journal cannot be read or is in use by another process
+     */
+    Journal(JournalOptions options, Transport transport, String collectionName, ScheduledExecutorService scheduler, Runnable onRejected) throws IOException {
+        _options = options;
+        _directory = options.getDirectory().resolve(collectionName);
+        _transport = transport;
+        _collectionName = collectionName;
+        _scheduler = scheduler;
+        _onRejected = onRejected;
+
+        Files.createDirectories(_directory);
+        _checkpoint = FileChannel.open(_directory.resolve("checkpoint"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            _lock = _checkpoint.tryLock();
+        } catch (OverlappingFileLockException e) {
+            _checkpoint.close();
+            throw new IOException("The journal in " + _directory + " is already open");
+        }
+        if (_lock == null) {
+            _checkpoint.close();
+            throw new IOException("The journal in " + _directory + " is in use by another process");
+        }
+
+        try {
+            recover();
+            openSegment(_nextSeq);
+        } catch (IOException e) {
+            _checkpoint.close();
+            throw e;
+        }
+        _sentSeq = _unsent.isEmpty() ? _nextSeq - 1 : _unsent.peekFirst().seq - 1;
+
+        _writer = new Thread(this::write, "marcsync-journal-" + collectionName);
+        _writer.setDaemon(true);
+        _writer.start();
+        send();
+    }
+
+    /**
+     * @return A future completed once the record is on disk
+     */
+    synchronized CompletableFuture<Void> append(Operation operation, byte[] body) {
+        if (_closed) {
+            return CompletableFuture.failedFuture(new IOException("The journal of " + _collectionName + " is closed"));
+        }
+
+        Record record = new Record(_nextSeq++, operation, body, new CompletableFuture<>());
+        _appended.add(record);
+        return record.durable;
+    }
+
+    /**
+     * Waits until every record appended so far has been sent.
+     *
+     * @throws IOException The first write rejected by the API since the last flush
+     */
+    void flush() throws IOException {
+        CompletableFuture<Void> sent;
+        synchronized (this) {
+            long seq = _nextSeq - 1;
+            if (seq <= _sentSeq) {
+                sent = CompletableFuture.completedFuture(null);
+            } else {
+                sent = new CompletableFuture<>();
+                _waiters.add(new Waiter(seq, sent));
+            }
+        }
+        Transport.await(sent);
+
+        Throwable failure;
+        synchronized (this) {
+            failure = _failure;
+            _failure = null;
+        }
+        if (failure != null) {
+            throw failure instanceof IOException io ? io : new IOException("Failed to send journaled write", failure);
+        }
+    }
+
+    /**
+     * Writes the queued records in batches, each forced to disk once.
+     */
+    private void write() {
+        List<Record> batch = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    batch.add(_appended.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                _appended.drainTo(batch);
+
+                boolean close = batch.remove(CLOSE);
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+                if (close) {
+                    return;
+                }
+            }
+        } finally {
+            try {
+                _segment.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void commit(List<Record> batch) {
+        long start = -1;
+        try {
+            if (_segment.position() >= _options.getSegmentSize()) {
+                // The full segment stays current until the next one is open, so a failed roll is tried again with the next batch.
+                FileChannel full = _segment;
+                openSegment(batch.get(0).seq);
+                try {
+                    full.close();
+                } catch (IOException ignored) {
+                    // Its records were forced to disk with their batches.
+                }
+            }
+            start = _segment.position();
+
+            ByteBuffer[] buffers = new ByteBuffer[batch.size() * 2];
+            for (int i = 0; i < batch.size(); i++) {
+                Record record = batch.get(i);
+                buffers[i * 2] = header(record);
+                buffers[i * 2 + 1] = ByteBuffer.wrap(record.body);
+            }
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                _segment.write(buffers);
+            }
+            _segment.force(false);
+        } catch (IOException e) {
+            // Cut off what was written of the batch, so the records appended after it are not hidden behind a torn record.
+            try {
+                if (start >= 0) {
+                    _segment.truncate(start);
+                    _segment.position(start);
+                }
+            } catch (IOException ignored) {
+            }
+            for (Record record : batch) {
+                record.durable.completeExceptionally(e);
+            }
+        }
+
+        synchronized (this) {
+            _unsent.addAll(batch);
+        }
+        for (Record record : batch) {
+            record.durable.complete(null);
+        }
+        send();
+    }
+
+    private static ByteBuffer header(Record record) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(record.body.length);
+        header.putInt(0);
+        header.putLong(record.seq);
+        header.put((byte) record.operation.ordinal());
+
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), 8, HEADER_SIZE - 8);
+        crc.update(record.body);
+        header.putInt(4, (int) crc.getValue());
+        return header.flip();
+    }
+
+    /**
+     * Sends the oldest unsent record, unless a record is being sent already.
+     */
+    private void send() {
+        Record record;
+        CompletableFuture<Void> handled = new CompletableFuture<>();
+        List<Waiter> done = new ArrayList<>();
+        synchronized (this) {
+            // Records which could not be written were never acknowledged, so they are dropped.
+            while ((record = _unsent.peekFirst()) != null && record.durable.isCompletedExceptionally()) {
+                _unsent.pollFirst();
+                advance(record.seq, done);
+            }
+            if (_sending || _closed || record == null) {
+                record = null;
+            } else {
+                _sending = true;
+                _inFlight = handled;
+            }
+        }
+        done.forEach(waiter -> waiter.sent.complete(null));
+        if (record == null) {
+            return;
+        }
+
+        Record sending = record;
+        _transport.sendAsync(record.operation._action, () -> sending.operation.request(_transport, _collectionName, sending.body)).whenComplete((result, throwable) -> {
+            if (Collection.unwrap(throwable) instanceof URISyntaxException e) {
+                // The request cannot be built, so sending it again would fail the same way.
+                sent(sending, e);
+            } else if (throwable != null || isTransient(result.statusCode())) {
+                retry();
+            } else if (result.statusCode() != 200) {
+                sent(sending, new IOException("Failed to " + sending.operation._action + ": " + result.statusCode() + " " + new String(result.body(), StandardCharsets.UTF_8)));
+            } else {
+                sent(sending, null);
+            }
+        }).whenComplete((result, throwable) -> handled.complete(null));
+    }
+
+    private static boolean isTransient(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    private void sent(Record record, Throwable failure) {
+        List<Waiter> done = new ArrayList<>();
+        synchronized (this) {
+            _unsent.pollFirst();
+            _sending = false;
+            _inFlight = null;
+            _retries = 0;
+            if (failure != null && _failure == null) {
+                _failure = failure;
+            }
+            advance(record.seq, done);
+        }
+
+        try {
+            _checkpoint.write(ByteBuffer.allocate(8).putLong(0, record.seq), 0);
+        } catch (IOException ignored) {
+            // The record is sent again after a restart.
+        }
+        deleteSentSegments(record.seq);
+
+        if (failure != null) {
+            _onRejected.run();
+        }
+        done.forEach(waiter -> waiter.sent.complete(null));
+        send();
+    }
+
+    private void advance(long seq, List<Waiter> done) {
+        _sentSeq = seq;
+        while (!_waiters.isEmpty() && _waiters.peekFirst().seq <= seq) {
+            done.add(_waiters.pollFirst());
+        }
+    }
+
+    /**
+     * Sends the oldest record again after a delay doubling with every consecutive failure.
+     */
+    private void retry() {
+        long delay;
+        synchronized (this) {
+            _inFlight = null;
+            long base = _options.getRetryDelay().toNanos();
+            delay = Math.min(base << Math.min(_retries++, 20), _options.getMaxRetryDelay().toNanos());
+        }
+
+        try {
+            _scheduler.schedule(() -> {
+                synchronized (this) {
+                    _sending = false;
+                }
+                send();
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The client is closed, the record is sent again after a restart.
+        }
+    }
+
+    private void deleteSentSegments(long seq) {
+        synchronized (_segments) {
+            while (_segments.size() > 1 && _segments.get(1) - 1 <= seq) {
+                try {
+                    Files.deleteIfExists(segmentPath(_segments.remove(0)));
+                } catch (IOException ignored) {
+                    // Its records are skipped by the checkpoint.
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the records after the checkpoint back from the segments and deletes the segments holding no such record.
+     */
+    private void recover() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(8);
+        long sentSeq = _checkpoint.read(checkpoint, 0) == 8 ? checkpoint.getLong(0) : 0;
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(_directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        long lastSeq = sentSeq;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long firstSeq;
+            try {
+                firstSeq = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            long segmentLastSeq = readSegment(file, sentSeq);
+            if (segmentLastSeq <= sentSeq) {
+                Files.delete(file);
+            } else {
+                _segments.add(firstSeq);
+                lastSeq = Math.max(lastSeq, segmentLastSeq);
+            }
+        }
+        _nextSeq = lastSeq + 1;
+    }
+
+    /**
+     * @return The sequence number of the last intact record of the segment, or 0 if there is none
+     */
+    private long readSegment(Path file, long sentSeq) throws IOException {
+        long lastSeq = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Operation[] operations = Operation.values();
+            CRC32C crc = new CRC32C();
+
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining() - (HEADER_SIZE - 8)) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(buffer.slice(start + 8, HEADER_SIZE - 8 + length));
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                long seq = buffer.getLong();
+                int operation = buffer.get();
+                if (operation < 0 || operation >= operations.length) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                buffer.get(body);
+
+                lastSeq = seq;
+                if (seq > sentSeq) {
+                    _unsent.add(new Record(seq, operations[operation], body, CompletableFuture.completedFuture(null)));
+                }
+            }
+        }
+        return lastSeq;
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        _segment = FileChannel.open(segmentPath(firstSeq), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        synchronized (_segments) {
+            _segments.add(firstSeq);
+        }
+
+        // Make the new file itself durable, not only its content.
+        try (FileChannel directory = FileChannel.open(_directory, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ignored) {
+            // Not every platform can sync a directory.
+        }
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return _directory.resolve(String.format("%020d", firstSeq) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Stops sending and closes the journal once the records appended so far are on disk.
+     * <p>
+     *     Note: Records which have not been sent yet stay in the journal and are sent once it is opened again.
+     * </p>
+     */
+    @Override
+    public void close() {
+        CompletableFuture<?> inFlight;
+        List<Waiter> waiters;
+        synchronized (this) {
+            if (_closed) {
+                return;
+            }
+            _closed = true;
+            _appended.add(CLOSE);
+            inFlight = _inFlight;
+            waiters = new ArrayList<>(_waiters);
+            _waiters.clear();
+        }
+
+        try {
+            _writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (inFlight != null) {
+            inFlight.handle((response, throwable) -> null).join();
+        }
+        try {
+            _lock.release();
+            _checkpoint.close();
+        } catch (IOException ignored) {
+        }
+
+        IOException closed = new IOException("The journal of " + _collectionName + " was closed before every write was sent");
+        waiters.forEach(waiter -> waiter.sent.completeExceptionally(closed));
+    }
+
+    private record Record(long seq, Operation operation, byte[] body, CompletableFuture<Void> durable) {
+    }
+
+    private record Waiter(long seq, CompletableFuture<Void> sent) {
+    }
+}
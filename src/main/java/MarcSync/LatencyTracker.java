@@ -0,0 +1,42 @@
+package MarcSync;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latencies in a ring buffer to estimate a percentile of them.
+ */
+final class LatencyTracker {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final long[] _samples;
+    private int _next = 0;
+    private int _count = 0;
+
+    LatencyTracker(int capacity) {
+        _samples = new long[capacity];
+    }
+
+    synchronized void record(long nanos) {
+        _samples[_next] = nanos;
+        _next = (_next + 1) % _samples.length;
+        _count = Math.min(_count + 1, _samples.length);
+    }
+
+    /**
+     * @param percentile The percentile, e.g. {@code 0.95}
+     * @return The percentile of the recent latencies in nanoseconds, or -1 if there are too few samples yet
+     */
+    long percentile(double percentile) {
+        long[] samples;
+        synchronized (this) {
+            if (_count < MIN_SAMPLES) {
+                return -1;
+            }
+            samples = Arrays.copyOf(_samples, _count);
+        }
+
+        Arrays.sort(samples);
+        return samples[(int) Math.min(samples.length - 1, Math.ceil(percentile * samples.length) - 1)];
+    }
+}
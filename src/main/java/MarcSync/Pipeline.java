@@ -0,0 +1,177 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.PipelineResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Collects writes to entries of any number of collections and runs them as concurrently as their order allows.
+ * <p>
+ *     Note: Operations on the same entry, i.e. the same collection and {@code _id}, run one after the other in the order they were added. Operations on a filter run after every earlier operation on their collection and before every later one. Everything else runs concurrently, so a pipeline takes about as long as its longest chain of dependent operations.
+ *     A failing operation does not stop the others, not even the later operations on the same entry.
+ *     Operations go through {@link Client#getCollection(String)}, so they are buffered, journaled, cached and replicated like any other write to that collection.
+ * </p>
+ *
+ * @see Client#pipeline()
+ */
+public class Pipeline {
+
+    private final Client _client;
+    private final List<Operation> _operations = new ArrayList<>();
+    private boolean _executed = false;
+
+    Pipeline(Client client) {
+        _client = client;
+    }
+
+    /**
+     * Creates an entry, ordered with the other operations on its {@code _id} if it has one.
+     *
+     * @return This pipeline
+     */
+    public Pipeline createEntry(String collectionName, EntryData entryData) {
+        return add(new Operation(collectionName, "create entry", entryData.get("_id"), entryData, false, collection -> collection.createEntryAsync(entryData)));
+    }
+
+    /**
+     * Updates the entry with the specified ID.
+     *
+     * @return This pipeline
+     */
+    public Pipeline updateEntryById(String collectionName, String id, EntryData entryData) {
+        return add(new Operation(collectionName, "update entry", id, entryData, false, collection -> collection.updateEntryByIdAsync(id, entryData)));
+    }
+
+    /**
+     * Deletes the entry with the specified ID.
+     *
+     * @return This pipeline
+     */
+    public Pipeline deleteEntryById(String collectionName, String id) {
+        return add(new Operation(collectionName, "delete entry", id, null, false, collection -> collection.deleteEntryByIdAsync(id)));
+    }
+
+    /**
+     * Updates the entries matching the filter, after every earlier operation on the collection.
+     *
+     * @return This pipeline
+     */
+    public Pipeline updateEntries(String collectionName, EntryData filters, EntryData entryData) {
+        return add(new Operation(collectionName, "update entries", null, entryData, true, collection -> collection.updateEntriesAsync(filters, entryData)));
+    }
+
+    /**
+     * Deletes the entries matching the filter, after every earlier operation on the collection.
+     *
+     * @return This pipeline
+     */
+    public Pipeline deleteEntries(String collectionName, EntryData filters) {
+        return add(new Operation(collectionName, "delete entries", null, null, true, collection -> collection.deleteEntriesAsync(filters)));
+    }
+
+    private synchronized Pipeline add(Operation operation) {
+        if (_executed) {
+            throw new IllegalStateException("The pipeline has been executed already");
+        }
+        _operations.add(operation);
+        return this;
+    }
+
+    /**
+     * Runs the operations and waits for all of them.
+     *
+     * @return The outcome of every operation, in the order they were added
+     */
+    public PipelineResult execute() throws IOException {
+        return Transport.await(executeAsync());
+    }
+
+    /**
+     * @see #execute()
+     */
+    public CompletableFuture<PipelineResult> executeAsync() {
+        List<Operation> operations;
+        synchronized (this) {
+            if (_executed) {
+                throw new IllegalStateException("The pipeline has been executed already");
+            }
+            _executed = true;
+            operations = List.copyOf(_operations);
+        }
+
+        Map<String, Lane> lanes = new HashMap<>();
+        List<CompletableFuture<PipelineResult.Item>> items = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            Collection collection = _client.getCollection(operation.collectionName);
+            Lane lane = lanes.computeIfAbsent(operation.collectionName, name -> new Lane());
+
+            int index = i;
+            CompletableFuture<PipelineResult.Item> item = lane.after(operation)
+                    .handle((ignored, throwable) -> null)
+                    .thenCompose(ignored -> run(operation, collection))
+                    .handle((ignored, throwable) -> new PipelineResult.Item(index, operation.collectionName, operation.action, operation.id, operation.entryData, Collection.unwrap(throwable)));
+            lane.added(operation, item);
+            items.add(item);
+        }
+
+        return CompletableFuture.allOf(items.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> new PipelineResult(items.stream().map(CompletableFuture::join).toList()));
+    }
+
+    private static CompletableFuture<?> run(Operation operation, Collection collection) {
+        try {
+            return operation.send.apply(collection);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private record Operation(String collectionName, String action, Object id, EntryData entryData, boolean filtered, Function<Collection, CompletableFuture<?>> send) {
+    }
+
+    /**
+     * The order of the operations on a single collection.
+     */
+    private static final class Lane {
+        private CompletableFuture<?> _barrier = CompletableFuture.completedFuture(null);
+        private final List<CompletableFuture<?>> _sinceBarrier = new ArrayList<>();
+        private final Map<String, CompletableFuture<?>> _lastById = new HashMap<>();
+
+        /**
+         * @return A future completed once the operations the operation has to wait for are done
+         */
+        CompletableFuture<?> after(Operation operation) {
+            if (operation.filtered) {
+                _sinceBarrier.add(_barrier);
+                return CompletableFuture.allOf(_sinceBarrier.toArray(CompletableFuture[]::new));
+            }
+            if (operation.id == null) {
+                return _barrier;
+            }
+            return _lastById.getOrDefault(operation.id.toString(), _barrier);
+        }
+
+        void added(Operation operation, CompletableFuture<?> done) {
+            if (operation.filtered) {
+                _barrier = done;
+                _sinceBarrier.clear();
+                _lastById.clear();
+                return;
+            }
+
+            _sinceBarrier.add(done);
+            if (operation.id != null) {
+                _lastById.put(operation.id.toString(), done);
+            }
+        }
+    }
+}
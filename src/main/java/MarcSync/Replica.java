@@ -0,0 +1,413 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.ReplicaOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory copy of a collection answering equality filters locally.
+ * <p>
+ *     Note: Writes made through the collection and its entries are applied to the replica as soon as they are made, writes of other clients show up with the next refresh. Filters match the way the API matches them: every field of the filter has to be equal, numbers are compared by value regardless of their type.
+ * </p>
+ *
+ * @see Collection#replicate(ReplicaOptions)
+ */
+public class Replica implements AutoCloseable {
+
+    private final Collection _collection;
+    private final List<String> _indexes;
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+    private final ScheduledFuture<?> _refreshTask;
+    private final Path _snapshotFile;
+
+    private State _state;
+    private List<Consumer<State>> _replay = new ArrayList<>();
+    private CompletableFuture<Void> _refresh;
+    private CompletableFuture<Void> _snapshotWrite = CompletableFuture.completedFuture(null);
+    private volatile Instant _refreshedAt;
+
+    Replica(Collection collection, ReplicaOptions options) {
+        _collection = collection;
+        _indexes = List.copyOf(options.getIndexes());
+        _snapshotFile = options.getSnapshotFile();
+        _state = new State(_indexes);
+
+        long interval = options.getRefreshInterval() != null ? options.getRefreshInterval().toNanos() : 0;
+        _refreshTask = interval > 0
+                ? collection.client().scheduler().scheduleWithFixedDelay(this::refreshAsync, interval, interval, TimeUnit.NANOSECONDS)
+                : null;
+    }
+
+    /**
+     * @param id The ID of the entry
+     * @return The entry with the specified ID, or {@code null} if the replica has none
+     */
+    public Entry getEntryById(String id) {
+        _lock.readLock().lock();
+        try {
+            EntryData entryData = _state.entries.get(normalize(id));
+            return entryData != null ? new Entry(_collection, copy(entryData)) : null;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param filters The filter the entries have to match
+     * @return The entries of the replica with the specified filter, in no particular order
+     *
+     * @see Collection#getEntries(EntryData)
+     */
+    public Entry[] getEntries(EntryData filters) {
+        List<Entry> entries = new ArrayList<>();
+        _lock.readLock().lock();
+        try {
+            for (Object id : _state.matchingIds(filters)) {
+                entries.add(new Entry(_collection, copy(_state.entries.get(id))));
+            }
+        } finally {
+            _lock.readLock().unlock();
+        }
+        return entries.toArray(new Entry[0]);
+    }
+
+    /**
+     * @return The number of entries in the replica
+     */
+    public int size() {
+        _lock.readLock().lock();
+        try {
+            return _state.entries.size();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return When the entries of the replica were loaded from the API, which is when the snapshot was taken if they come from a snapshot, or {@code null} if they were not loaded yet
+     */
+    public Instant getRefreshedAt() {
+        return _refreshedAt;
+    }
+
+    /**
+     * Loads the collection again and waits for it.
+     */
+    public void refresh() throws IOException {
+        Transport.await(refreshAsync());
+    }
+
+    /**
+     * @see #refresh()
+     * <p>
+     *     Note: A refresh already in flight is shared. Writes made while the collection is loaded are applied again on top of the loaded entries, so they are never lost to a refresh.
+     * </p>
+     */
+    public synchronized CompletableFuture<Void> refreshAsync() {
+        if (_refresh != null) {
+            return _refresh;
+        }
+
+        _lock.writeLock().lock();
+        try {
+            if (_replay == null) {
+                _replay = new ArrayList<>();
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+
+        CompletableFuture<Void> refresh = _collection.readAllAsync().thenAccept(entries -> {
+            install(entries);
+            _refreshedAt = Instant.now();
+            saveSnapshot();
+        }).whenComplete((ignored, throwable) -> {
+            _lock.writeLock().lock();
+            try {
+                _replay = null;
+            } finally {
+                _lock.writeLock().unlock();
+            }
+            synchronized (this) {
+                _refresh = null;
+            }
+        });
+
+        if (!refresh.isDone()) {
+            _refresh = refresh;
+        }
+        return refresh;
+    }
+
+    /**
+     * Replaces the entries of the replica, applying the writes made since the refresh started on top of them.
+     */
+    private void install(List<EntryData> entries) {
+        State state = new State(_indexes);
+        for (EntryData entryData : entries) {
+            state.put(entryData);
+        }
+
+        _lock.writeLock().lock();
+        try {
+            for (Consumer<State> write : _replay) {
+                write.accept(state);
+            }
+            _state = state;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Serves the replica from the snapshot file until the first refresh completes.
+     *
+     * @return Whether a valid snapshot was loaded
+     */
+    boolean loadSnapshot() {
+        if (_snapshotFile == null) {
+            return false;
+        }
+
+        SnapshotFile.Snapshot snapshot;
+        try {
+            snapshot = SnapshotFile.read(_snapshotFile, _collection::newEntryData);
+        } catch (IOException e) {
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+
+        install(snapshot.entries());
+        _refreshedAt = snapshot.createdAt();
+        return true;
+    }
+
+    /**
+     * Writes the current entries to the snapshot file in the background, one write after the other.
+     */
+    private void saveSnapshot() {
+        if (_snapshotFile == null) {
+            return;
+        }
+
+        List<EntryData> entries = new ArrayList<>();
+        _lock.readLock().lock();
+        try {
+            for (EntryData entryData : _state.entries.values()) {
+                entries.add(copy(entryData));
+            }
+        } finally {
+            _lock.readLock().unlock();
+        }
+
+        synchronized (this) {
+            _snapshotWrite = _snapshotWrite.thenRunAsync(() -> {
+                try {
+                    SnapshotFile.write(_snapshotFile, entries);
+                } catch (IOException ignored) {
+                    // The next refresh writes it again, a missing snapshot only costs a slower start.
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops refreshing the replica and detaches it from the collection, so our own writes are not applied to it anymore.
+     */
+    @Override
+    public void close() {
+        if (_refreshTask != null) {
+            _refreshTask.cancel(false);
+        }
+        _collection.detach(this);
+    }
+
+    void created(EntryData entryData) {
+        EntryData created = copy(entryData);
+        write(state -> state.put(copy(created)));
+    }
+
+    void updated(Object id, EntryData changes) {
+        EntryData update = copy(changes);
+        write(state -> state.update(normalize(id), update));
+    }
+
+    void deleted(Object id) {
+        write(state -> state.remove(normalize(id)));
+    }
+
+    void updatedMatching(EntryData filters, EntryData changes) {
+        EntryData filter = copy(filters);
+        EntryData update = copy(changes);
+        write(state -> {
+            for (Object id : state.matchingIds(filter)) {
+                state.update(id, update);
+            }
+        });
+    }
+
+    void deletedMatching(EntryData filters) {
+        EntryData filter = copy(filters);
+        write(state -> {
+            for (Object id : state.matchingIds(filter)) {
+                state.remove(id);
+            }
+        });
+    }
+
+    private void write(Consumer<State> write) {
+        _lock.writeLock().lock();
+        try {
+            write.accept(_state);
+            if (_replay != null) {
+                _replay.add(write);
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    private static EntryData copy(EntryData entryData) {
+        return entryData != null ? (EntryData) entryData.clone() : new EntryData();
+    }
+
+    /**
+     * @return The value in the form it is compared and indexed by, with every number as a {@code Double}
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> normalized = new HashMap<>();
+            map.forEach((key, element) -> normalized.put(key, normalize(element)));
+            return normalized;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> normalized = new ArrayList<>(list.size());
+            list.forEach(element -> normalized.add(normalize(element)));
+            return normalized;
+        }
+        return value;
+    }
+
+    /**
+     * The entries keyed by {@code _id} and the hash indexes over them, only accessed while holding the lock.
+     */
+    private static final class State {
+        final Map<Object, EntryData> entries = new LinkedHashMap<>();
+        final Map<String, Map<Object, Set<Object>>> indexes = new HashMap<>();
+
+        State(List<String> fields) {
+            for (String field : fields) {
+                indexes.put(field, new HashMap<>());
+            }
+        }
+
+        /**
+         * Adds the entry, or ignores it if it has no {@code _id} since it could never be found or replaced again.
+         */
+        void put(EntryData entryData) {
+            Object id = normalize(entryData.get("_id"));
+            if (id == null) {
+                return;
+            }
+            remove(id);
+            entries.put(id, entryData);
+            indexes.forEach((field, index) -> index.computeIfAbsent(normalize(entryData.get(field)), key -> new LinkedHashSet<>()).add(id));
+        }
+
+        void update(Object id, EntryData changes) {
+            EntryData entryData = entries.get(id);
+            if (entryData == null) {
+                return;
+            }
+
+            for (String field : changes.keySet()) {
+                Map<Object, Set<Object>> index = indexes.get(field);
+                if (index != null) {
+                    unindex(index, normalize(entryData.get(field)), id);
+                    index.computeIfAbsent(normalize(changes.get(field)), key -> new LinkedHashSet<>()).add(id);
+                }
+            }
+            entryData.putAll(changes);
+        }
+
+        void remove(Object id) {
+            EntryData entryData = entries.remove(id);
+            if (entryData != null) {
+                indexes.forEach((field, index) -> unindex(index, normalize(entryData.get(field)), id));
+            }
+        }
+
+        /**
+         * @return The keys of the entries matching every field of the filter, looked up through the most selective index if a filtered field is indexed
+         */
+        List<Object> matchingIds(EntryData filters) {
+            Map<String, Object> wanted = new LinkedHashMap<>();
+            if (filters != null) {
+                filters.forEach((field, value) -> wanted.put(field, normalize(value)));
+            }
+
+            java.util.Collection<Object> candidates = null;
+            if (wanted.containsKey("_id")) {
+                // The filter may ask for a null _id, which List.of would reject.
+                candidates = entries.containsKey(wanted.get("_id")) ? Collections.singletonList(wanted.get("_id")) : List.of();
+            } else {
+                for (Map.Entry<String, Object> filter : wanted.entrySet()) {
+                    Map<Object, Set<Object>> index = indexes.get(filter.getKey());
+                    if (index != null) {
+                        Set<Object> ids = index.getOrDefault(filter.getValue(), Set.of());
+                        if (candidates == null || ids.size() < candidates.size()) {
+                            candidates = ids;
+                        }
+                    }
+                }
+            }
+
+            List<Object> matching = new ArrayList<>();
+            for (Object id : candidates != null ? candidates : entries.keySet()) {
+                if (matches(entries.get(id), wanted)) {
+                    matching.add(id);
+                }
+            }
+            return matching;
+        }
+
+        private static boolean matches(EntryData entryData, Map<String, Object> wanted) {
+            for (Map.Entry<String, Object> filter : wanted.entrySet()) {
+                if (!Objects.equals(filter.getValue(), normalize(entryData.get(filter.getKey())))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static void unindex(Map<Object, Set<Object>> index, Object key, Object id) {
+            Set<Object> ids = index.get(key);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package MarcSync;
+
+import MarcSync.classes.LimiterOptions;
+import MarcSync.classes.LimiterStats;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the requests of a client by a token bucket for the request rate and an adaptive concurrency limit.
+ * <p>
+ *     Note: The concurrency limit grows by one per limit's worth of healthy responses and is cut by the backoff ratio on a 429, a 503 or a response slower than the target latency, at most once per round trip. Requests over either limit wait in a FIFO queue.
+ * </p>
+ */
+final class RequestLimiter {
+
+    private final LimiterOptions _options;
+    private final double _tokensPerNano;
+    private final long _targetLatencyNanos;
+    private final ArrayDeque<Waiter<?>> _queue = new ArrayDeque<>();
+
+    private double _limit;
+    private int _inFlight = 0;
+    private double _tokens;
+    private long _refilledAt = System.nanoTime();
+    private long _decreasedAt = System.nanoTime();
+    private boolean _refillScheduled = false;
+    private int _maxQueued = 0;
+    private long _rejected = 0;
+    private long _timedOut = 0;
+    private long _overloads = 0;
+
+    RequestLimiter(LimiterOptions options) {
+        _options = options;
+        _tokensPerNano = options.getRequestsPerSecond() / 1e9;
+        _targetLatencyNanos = options.getTargetLatency().toNanos();
+        _limit = Math.min(options.getMaxConcurrency(), Math.max(options.getMinConcurrency(), options.getInitialConcurrency()));
+        _tokens = options.getBurst();
+    }
+
+    /**
+     * @param send Sends the request once a permit is available
+     * @return The response, or a future failed with an {@link IOException} if the queue is full or the permit did not become available in time
+     */
+    <T> CompletableFuture<HttpResponse<T>> submit(Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        Waiter<T> waiter = new Waiter<>(send);
+
+        synchronized (this) {
+            if (_queue.isEmpty() && tryAcquire()) {
+                waiter.permitted = true;
+            } else if (_queue.size() >= _options.getMaxQueueSize()) {
+                _rejected++;
+                return CompletableFuture.failedFuture(new IOException("Too many requests waiting for a permit: " + _queue.size()));
+            } else {
+                _queue.add(waiter);
+                _maxQueued = Math.max(_maxQueued, _queue.size());
+                scheduleRefill();
+            }
+        }
+
+        if (waiter.permitted) {
+            start(waiter);
+        } else if (_options.getQueueTimeout() != null) {
+            CompletableFuture.delayedExecutor(_options.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS).execute(() -> timeOut(waiter));
+        }
+        return waiter.result;
+    }
+
+    synchronized LimiterStats stats() {
+        return new LimiterStats((int) _limit, _inFlight, _queue.size(), _maxQueued, _rejected, _timedOut, _overloads);
+    }
+
+    private <T> void start(Waiter<T> waiter) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = waiter.send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<T>> request = sent;
+        waiter.result.whenComplete((response, throwable) -> {
+            if (waiter.result.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        sent.whenComplete((response, throwable) -> {
+            release(System.nanoTime() - start, response != null ? response.statusCode() : -1);
+            if (throwable != null) {
+                waiter.result.completeExceptionally(throwable);
+            } else {
+                waiter.result.complete(response);
+            }
+        });
+    }
+
+    private void release(long latencyNanos, int statusCode) {
+        synchronized (this) {
+            _inFlight--;
+            long now = System.nanoTime();
+            if (statusCode == 429 || statusCode == 503 || latencyNanos > _targetLatencyNanos) {
+                _overloads++;
+                if (now - _decreasedAt > latencyNanos) {
+                    _decreasedAt = now;
+                    _limit = Math.max(_options.getMinConcurrency(), _limit * _options.getBackoffRatio());
+                }
+            } else if (statusCode > 0) {
+                _limit = Math.min(_options.getMaxConcurrency(), _limit + 1 / _limit);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Starts as many queued requests as the limits allow.
+     */
+    private void drain() {
+        while (true) {
+            Waiter<?> waiter;
+            synchronized (this) {
+                while (!_queue.isEmpty() && _queue.peek().result.isDone()) {
+                    _queue.poll();
+                }
+                if (_queue.isEmpty()) {
+                    return;
+                }
+                if (!tryAcquire()) {
+                    scheduleRefill();
+                    return;
+                }
+                waiter = _queue.poll();
+                waiter.permitted = true;
+            }
+            start(waiter);
+        }
+    }
+
+    private void timeOut(Waiter<?> waiter) {
+        synchronized (this) {
+            if (waiter.permitted || !_queue.remove(waiter)) {
+                return;
+            }
+            _timedOut++;
+        }
+        waiter.result.completeExceptionally(new HttpTimeoutException("Timed out waiting for a request permit after " + _options.getQueueTimeout().toMillis() + "ms"));
+    }
+
+    /**
+     * Takes a concurrency permit and a token if both are available. Must be called while holding the lock.
+     */
+    private boolean tryAcquire() {
+        if (_inFlight >= (int) _limit) {
+            return false;
+        }
+
+        if (_tokensPerNano > 0) {
+            long now = System.nanoTime();
+            _tokens = Math.min(_options.getBurst(), _tokens + (now - _refilledAt) * _tokensPerNano);
+            _refilledAt = now;
+            if (_tokens < 1) {
+                return false;
+            }
+            _tokens--;
+        }
+
+        _inFlight++;
+        return true;
+    }
+
+    /**
+     * Wakes the queue up once the next token is available, if the queue is waiting for tokens rather than for a request to complete. Must be called while holding the lock.
+     */
+    private void scheduleRefill() {
+        if (_tokensPerNano <= 0 || _refillScheduled || _inFlight >= (int) _limit) {
+            return;
+        }
+
+        _refillScheduled = true;
+        long delay = (long) Math.ceil(Math.max(0, 1 - _tokens) / _tokensPerNano);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            synchronized (this) {
+                _refillScheduled = false;
+            }
+            drain();
+        });
+    }
+
+    private static final class Waiter<T> {
+        final Supplier<CompletableFuture<HttpResponse<T>>> send;
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        boolean permitted = false;
+
+        Waiter(Supplier<CompletableFuture<HttpResponse<T>>> send) {
+            this.send = send;
+        }
+    }
+}
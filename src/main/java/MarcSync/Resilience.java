@@ -0,0 +1,193 @@
+package MarcSync;
+
+import MarcSync.classes.ResiliencePolicy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Retries failed reads with jittered exponential backoff, honoring {@code Retry-After}, and optionally hedges slow reads.
+ * <p>
+ *     Note: Only idempotent requests are passed through here, a write is never sent twice.
+ * </p>
+ */
+final class Resilience {
+
+    @FunctionalInterface
+    interface Sender {
+        <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler);
+    }
+
+    private final ResiliencePolicy _policy;
+    private final Sender _sender;
+    private final LatencyTracker _latencies = new LatencyTracker(256);
+
+    Resilience(ResiliencePolicy policy, Sender sender) {
+        _policy = policy;
+        _sender = sender;
+    }
+
+    /**
+     * @param onAttempt Runs whenever the request is sent, including retries and hedged requests, or {@code null}
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, Runnable onAttempt) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse<T>>> current = new AtomicReference<>();
+        result.whenComplete((response, throwable) -> {
+            CompletableFuture<HttpResponse<T>> attempt = current.get();
+            if (result.isCancelled() && attempt != null) {
+                attempt.cancel(true);
+            }
+        });
+
+        attempt(request, handler, onAttempt, 1, result, current);
+        return result;
+    }
+
+    private <T> void attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler, Runnable onAttempt, int attempt, CompletableFuture<HttpResponse<T>> result, AtomicReference<CompletableFuture<HttpResponse<T>>> current) {
+        if (result.isDone()) {
+            return;
+        }
+
+        CompletableFuture<HttpResponse<T>> sent = _policy.isHedging() ? hedged(request, handler, onAttempt) : sendOnce(request, handler, onAttempt);
+        current.set(sent);
+
+        sent.whenComplete((response, throwable) -> {
+            long delay = -1;
+            if (attempt < _policy.getMaxAttempts() && !result.isDone()) {
+                if (throwable != null) {
+                    delay = isRetryable(throwable) ? backoff(attempt) : -1;
+                } else if (_policy.getRetryStatusCodes().contains(response.statusCode())) {
+                    delay = retryDelay(response, attempt);
+                }
+            }
+
+            if (delay < 0) {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else if (!result.complete(response)) {
+                    discard(response);
+                }
+                return;
+            }
+
+            discard(response);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> attempt(request, handler, onAttempt, attempt + 1, result, current));
+        });
+    }
+
+    /**
+     * Sends the request and, if it has not answered within the hedge delay, sends it a second time. The first answer wins and the other one is cancelled.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> hedged(HttpRequest request, HttpResponse.BodyHandler<T> handler, Runnable onAttempt) {
+        long hedgeDelay = _latencies.percentile(_policy.getHedgePercentile());
+        CompletableFuture<HttpResponse<T>> primary = timed(request, handler, onAttempt);
+        if (hedgeDelay < 0) {
+            return primary;
+        }
+
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<HttpResponse<T>>> hedge = new AtomicReference<>();
+
+        primary.whenComplete((response, throwable) -> settle(result, pending, response, throwable));
+        CompletableFuture.delayedExecutor(Math.max(hedgeDelay, _policy.getMinHedgeDelay().toNanos()), TimeUnit.NANOSECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            pending.incrementAndGet();
+            CompletableFuture<HttpResponse<T>> second = timed(request, handler, onAttempt);
+            hedge.set(second);
+            second.whenComplete((response, throwable) -> settle(result, pending, response, throwable));
+        });
+
+        result.whenComplete((response, throwable) -> {
+            primary.cancel(true);
+            CompletableFuture<HttpResponse<T>> second = hedge.get();
+            if (second != null) {
+                second.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> timed(HttpRequest request, HttpResponse.BodyHandler<T> handler, Runnable onAttempt) {
+        long start = System.nanoTime();
+        return sendOnce(request, handler, onAttempt).whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                _latencies.record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendOnce(HttpRequest request, HttpResponse.BodyHandler<T> handler, Runnable onAttempt) {
+        if (onAttempt != null) {
+            onAttempt.run();
+        }
+        return _sender.send(request, handler);
+    }
+
+    private static <T> void settle(CompletableFuture<HttpResponse<T>> result, AtomicInteger pending, HttpResponse<T> response, Throwable throwable) {
+        if (throwable == null) {
+            if (!result.complete(response)) {
+                discard(response);
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(throwable);
+        }
+    }
+
+    private static boolean isRetryable(Throwable throwable) {
+        Throwable cause = Collection.unwrap(throwable);
+        return cause instanceof IOException && !(cause instanceof CancellationException);
+    }
+
+    private long backoff(int attempt) {
+        long cap = Math.min(_policy.getMaxDelay().toMillis(), _policy.getBaseDelay().toMillis() << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(Math.max(cap, 0) + 1);
+    }
+
+    /**
+     * @return The delay requested by the {@code Retry-After} header, the backoff delay if there is none, or -1 if the requested delay is too long to wait for
+     */
+    private long retryDelay(HttpResponse<?> response, int attempt) {
+        String retryAfter = response.headers().firstValue("retry-after").orElse(null);
+        if (retryAfter == null) {
+            return backoff(attempt);
+        }
+
+        long delay;
+        try {
+            delay = Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                delay = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis();
+            } catch (DateTimeParseException ignored) {
+                return backoff(attempt);
+            }
+        }
+
+        delay = Math.max(delay, 0);
+        return delay <= _policy.getMaxRetryAfter().toMillis() ? delay : -1;
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof InputStream body) {
+            try {
+                body.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
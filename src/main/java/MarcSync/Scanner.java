@@ -0,0 +1,120 @@
+package MarcSync;
+
+import MarcSync.classes.ScanOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pages through the entries matching a filter, keeping a bounded window of pages in flight ahead of the consumer.
+ * <p>
+ *     Note: A page with fewer entries than the page size ends the scan. A page with more entries means the server ignored the page bounds and returned every entry at once, so it also ends the scan.
+ *     A page starting with the same {@code _id} as the previous one means the server ignored the offset and returned the first page again, so that page is dropped and the scan ends.
+ * </p>
+ */
+final class Scanner implements Iterator<Entry>, AutoCloseable {
+
+    private final int _pageSize;
+    private final int _parallelism;
+    private final LongFunction<CompletableFuture<Entry[]>> _fetchPage;
+    private final ArrayDeque<CompletableFuture<Entry[]>> _pages = new ArrayDeque<>();
+
+    private long _nextPage = 0;
+    private boolean _started = false;
+    private boolean _lastRequested = false;
+    private Entry[] _current = new Entry[0];
+    private int _position = 0;
+    private Object _firstId;
+
+    /**
+     * @param fetchPage Fetches the page with the given index, i.e. the entries from {@code index * pageSize} on
+     */
+    Scanner(ScanOptions options, LongFunction<CompletableFuture<Entry[]>> fetchPage) {
+        _pageSize = options.getPageSize();
+        _parallelism = options.getParallelism();
+        _fetchPage = fetchPage;
+    }
+
+    Stream<Entry> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!_started) {
+            // The first pages are only requested once the stream is consumed, a scan which is never used sends nothing.
+            _started = true;
+            fill();
+        }
+
+        while (_position == _current.length) {
+            CompletableFuture<Entry[]> page = _pages.poll();
+            if (page == null) {
+                return false;
+            }
+
+            try {
+                _current = Transport.await(page);
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            _position = 0;
+
+            Object firstId = _current.length > 0 ? _current[0].getValues().get("_id") : null;
+            if (firstId != null && firstId.equals(_firstId)) {
+                _current = new Entry[0];
+                close();
+                return false;
+            }
+            _firstId = firstId;
+
+            if (_current.length != _pageSize) {
+                close();
+            } else {
+                fill();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Entry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry entry = _current[_position];
+        _current[_position++] = null;
+        return entry;
+    }
+
+    /**
+     * Requests pages until the window is full again.
+     */
+    private void fill() {
+        while (!_lastRequested && _pages.size() < _parallelism) {
+            _pages.add(_fetchPage.apply(_nextPage++));
+        }
+    }
+
+    /**
+     * Stops requesting pages and cancels the ones in flight.
+     */
+    @Override
+    public void close() {
+        _lastRequested = true;
+        CompletableFuture<Entry[]> page;
+        while ((page = _pages.poll()) != null) {
+            page.cancel(true);
+        }
+    }
+}
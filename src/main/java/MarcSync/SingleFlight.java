@@ -0,0 +1,51 @@
+package MarcSync;
+
+import MarcSync.classes.CoalescingStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Folds identical concurrent reads into a single request whose response is handed to every caller.
+ * <p>
+ *     Note: Only the raw response is shared, every caller decodes its own entries, so no mutable state is shared between callers.
+ * </p>
+ */
+final class SingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> _inFlight = new ConcurrentHashMap<>();
+    private final LongAdder _calls = new LongAdder();
+    private final LongAdder _folded = new LongAdder();
+
+    /**
+     * @param key Identifies the read, e.g. the collection and the canonical filter
+     * @param call Sends the request if no identical read is in flight
+     * @return The response of the read in flight, as a future which can be cancelled without affecting the other callers
+     */
+    CompletableFuture<byte[]> run(String key, Supplier<CompletableFuture<byte[]>> call) {
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = _inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            _folded.increment();
+            return existing.copy();
+        }
+
+        _calls.increment();
+        call.get().whenComplete((response, throwable) -> {
+            _inFlight.remove(key, flight);
+            if (throwable != null) {
+                flight.completeExceptionally(throwable);
+            } else {
+                flight.complete(response);
+            }
+        });
+        return flight.copy();
+    }
+
+    CoalescingStats stats() {
+        return new CoalescingStats(_calls.sum(), _folded.sum(), _inFlight.size());
+    }
+}
@@ -0,0 +1,279 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the entries of a collection as a compact binary snapshot.
+ * <p>
+ *     Note: The file starts with a header holding a magic number, the format version, the creation time, the number of entries, the payload length and a CRC32C of the payload.
+ *     The payload holds the field names once, followed by the entries as tagged values. Snapshots are read through a memory mapping and written to a temporary file which replaces the old snapshot atomically.
+ * </p>
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x4D534E50;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8 + 4;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte LONG = 4;
+    private static final byte INTEGER = 5;
+    private static final byte STRING = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private SnapshotFile() {
+    }
+
+    record Snapshot(Instant createdAt, List<EntryData> entries) {
+    }
+
+    /**
+     * @param newEntryData Creates the entries to decode into, e.g. compact entries of the collection's schema
+     * @return The snapshot, or {@code null} if there is no file
+     *
+     * @throws IOException If the file is truncated, of another version or its checksum does not match
+     */
+    static Snapshot read(Path file, Supplier<EntryData> newEntryData) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Snapshot " + file + " has version " + version + ", expected " + VERSION);
+            }
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            int entryCount = buffer.getInt();
+            long payloadLength = buffer.getLong();
+            int checksum = buffer.getInt();
+            if (payloadLength != size - HEADER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot " + file + " does not match its checksum");
+            }
+
+            String[] keys = new String[buffer.getInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = readString(buffer);
+            }
+
+            List<EntryData> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                EntryData entryData = newEntryData.get();
+                int fieldCount = buffer.getInt();
+                for (int j = 0; j < fieldCount; j++) {
+                    String key = keys[buffer.getInt()];
+                    entryData.put(key, readValue(buffer));
+                }
+                entries.add(entryData);
+            }
+            return new Snapshot(createdAt, entries);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (RuntimeException e) {
+            throw new IOException("Snapshot " + file + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the entries, so a reader sees either the old or the new snapshot but never a partial one.
+     */
+    static void write(Path file, List<EntryData> entries) throws IOException {
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        for (EntryData entryData : entries) {
+            for (String key : entryData.keySet()) {
+                keys.putIfAbsent(key, keys.size());
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.position(HEADER_SIZE);
+                CRC32C crc = new CRC32C();
+                CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(channel));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(counter, crc), 64 * 1024));
+
+                out.writeInt(keys.size());
+                for (String key : keys.keySet()) {
+                    writeString(out, key);
+                }
+                for (EntryData entryData : entries) {
+                    out.writeInt(entryData.size());
+                    for (Map.Entry<String, Object> field : entryData.entrySet()) {
+                        out.writeInt(keys.get(field.getKey()));
+                        writeValue(out, field.getValue());
+                    }
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(System.currentTimeMillis())
+                        .putInt(entries.size())
+                        .putLong(counter.count)
+                        .putInt((int) crc.getValue())
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof Integer integer) {
+            out.writeByte(INTEGER);
+            out.writeInt(integer);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Number number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> field : map.entrySet()) {
+                writeString(out, String.valueOf(field.getKey()));
+                writeValue(out, field.getValue());
+            }
+        } else if (value instanceof Iterable<?> iterable) {
+            List<Object> elements = new ArrayList<>();
+            iterable.forEach(elements::add);
+            out.writeByte(LIST);
+            out.writeInt(elements.size());
+            for (Object element : elements) {
+                writeValue(out, element);
+            }
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case DOUBLE:
+                return buffer.getDouble();
+            case LONG:
+                return buffer.getLong();
+            case INTEGER:
+                return buffer.getInt();
+            case STRING:
+                return readString(buffer);
+            case LIST: {
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = buffer.getInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buffer);
+                    map.put(key, readValue(buffer));
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream _out;
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            _out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            _out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            _out.write(bytes, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            _out.flush();
+        }
+    }
+}
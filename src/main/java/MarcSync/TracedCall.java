@@ -0,0 +1,110 @@
+package MarcSync;
+
+import MarcSync.classes.CallMetrics;
+import MarcSync.classes.MetricsListener;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures a single call to the API and reports it to the metrics listener and to the flight recorder.
+ * <p>
+ *     Note: Only created if a listener is set or the {@link ApiCallEvent} is enabled, so an uninstrumented call allocates nothing for it.
+ * </p>
+ */
+final class TracedCall {
+
+    private final MetricsListener _listener;
+    private final ApiCallEvent _event;
+    private final String _operation;
+    private final long _startedAt = System.nanoTime();
+    private final AtomicInteger _attempts = new AtomicInteger();
+    private long _sentAt;
+    private HttpRequest _request;
+
+    private TracedCall(MetricsListener listener, ApiCallEvent event, String operation) {
+        _listener = listener;
+        _event = event;
+        _operation = operation;
+    }
+
+    /**
+     * @return The traced call, or {@code null} if there is neither a listener nor an enabled event
+     */
+    static TracedCall start(String operation, MetricsListener listener) {
+        ApiCallEvent event = null;
+        if (ApiCallEvent.TYPE.isEnabled()) {
+            event = new ApiCallEvent();
+            event.begin();
+        }
+        if (event == null && listener == null) {
+            return null;
+        }
+        return new TracedCall(listener, event, operation);
+    }
+
+    /**
+     * Marks the end of serialization and the start of the network round trip.
+     */
+    void sent(HttpRequest request) {
+        _request = request;
+        _sentAt = System.nanoTime();
+    }
+
+    /**
+     * Counts a request sent to the server, including retries and hedged requests.
+     */
+    void attempt() {
+        _attempts.incrementAndGet();
+    }
+
+    /**
+     * @param response The final response, or {@code null} if there is none
+     * @param responseBytes The size of the response body, or -1 if it is unknown
+     * @param error The failure of the call, or {@code null} if it succeeded
+     */
+    void finish(HttpResponse<?> response, long responseBytes, Throwable error) {
+        long now = System.nanoTime();
+        long serialization = (_request != null ? _sentAt : now) - _startedAt;
+        long network = _request != null ? now - _sentAt : 0;
+        String method = _request != null ? _request.method() : null;
+        long requestBytes = _request != null ? _request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L) : 0;
+        int statusCode = response != null ? response.statusCode() : -1;
+        Throwable cause = error != null ? Collection.unwrap(error) : null;
+
+        if (_event != null) {
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.operation = _operation;
+                _event.collection = collectionOf(_request);
+                _event.method = method;
+                _event.statusCode = statusCode;
+                _event.requestBytes = requestBytes;
+                _event.responseBytes = responseBytes;
+                _event.attempts = _attempts.get();
+                _event.serializationTime = serialization;
+                _event.error = cause != null ? cause.toString() : null;
+                _event.commit();
+            }
+        }
+
+        if (_listener != null) {
+            try {
+                _listener.onCall(new CallMetrics(_operation, collectionOf(_request), method, statusCode, requestBytes, responseBytes, _attempts.get(), serialization, network, cause));
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    /**
+     * @return The name of the collection, which is the last segment of every path of the API, or {@code null} if the request could not be built
+     */
+    private static String collectionOf(HttpRequest request) {
+        if (request == null) {
+            return null;
+        }
+        String path = request.uri().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,296 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.LimiterStats;
+import MarcSync.classes.MetricsListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The HTTP transport shared by a {@link Client} and every {@link Collection} and {@link Entry} created from it.
+ * <p>
+ *     Note: Holds a single keep-alive, HTTP/2 capable {@link HttpClient} so that connections are reused across requests.
+ * </p>
+ */
+final class Transport implements AutoCloseable {
+
+    private final String _accessToken;
+    private final String _baseUrl;
+    private final Duration _requestTimeout;
+    private final HttpClient _httpClient;
+    private final Resilience _resilience;
+    private final RequestLimiter _limiter;
+    private final MetricsListener _metrics;
+    private final Compression _compression;
+
+    Transport(String accessToken, ClientOptions options) {
+        _accessToken = accessToken;
+        _baseUrl = options.getBaseUrl();
+        _requestTimeout = options.getRequestTimeout();
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(options.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL);
+
+        if (options.getExecutor() != null) {
+            builder.executor(options.getExecutor());
+        }
+
+        _httpClient = builder.build();
+        _metrics = options.getMetricsListener();
+        _compression = options.getCompression() != null ? new Compression(options.getCompression()) : null;
+        _limiter = options.getLimiter() != null ? new RequestLimiter(options.getLimiter()) : null;
+        _resilience = options.getResiliencePolicy() != null ? new Resilience(options.getResiliencePolicy(), this::sendOnce) : null;
+    }
+
+    /**
+     * @param method The HTTP method to use
+     * @param path The path relative to the base URL, e.g. {@code /v1/entries/users}
+     * @param body The JSON body to send, or {@code null} if the request has no body
+     * @return A request carrying the authorization and content headers, with the body gzipped if compression is enabled and it is large enough
+     */
+    HttpRequest request(String method, String path, byte[] body) throws URISyntaxException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(new URI(_baseUrl + path))
+                .timeout(_requestTimeout)
+                .header("accept", "application/json")
+                .header("authorization", _accessToken);
+
+        if (_compression != null) {
+            builder.header("accept-encoding", Compression.ACCEPT_ENCODING);
+        }
+
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+
+        if (_compression != null && _compression.shouldCompress(body)) {
+            body = _compression.gzip(body);
+            builder.header("content-encoding", "gzip");
+        }
+
+        return builder
+                .header("content-type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    /**
+     * Sends the request without checking the status code of the response.
+     */
+    HttpResponse<byte[]> send(String action, RequestSupplier request) throws IOException {
+        return await(sendAsync(action, request));
+    }
+
+    /**
+     * Sends the request without checking the status code of the response.
+     *
+     * @param request Builds the request, any exception thrown completes the returned future exceptionally
+     */
+    CompletableFuture<HttpResponse<byte[]>> sendAsync(String action, RequestSupplier request) {
+        return traced(TracedCall.start(action, _metrics), request, byteArrayHandler());
+    }
+
+    /**
+     * Builds the request once the call is traced, so the time spent serializing its body counts as part of the call.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> traced(TracedCall call, RequestSupplier request, HttpResponse.BodyHandler<T> handler) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = request.get();
+        } catch (Exception e) {
+            if (call != null) {
+                call.finish(null, -1, e);
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return traced(call, httpRequest, handler);
+    }
+
+    /**
+     * Sends the request and reports it to the metrics listener and the flight recorder if the call is traced.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> traced(TracedCall call, HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        if (call == null) {
+            return sendAsync(request, handler, null);
+        }
+
+        call.sent(request);
+        return sendAsync(request, handler, call).whenComplete((response, throwable) -> call.finish(response, responseBytes(response), throwable));
+    }
+
+    /**
+     * Sends the request, retrying and hedging it according to the resilience policy if it is a read.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler, TracedCall call) {
+        if (_resilience != null && request.method().equals("GET")) {
+            return _resilience.send(request, handler, call != null ? call::attempt : null);
+        }
+
+        if (call != null) {
+            call.attempt();
+        }
+        return sendOnce(request, handler);
+    }
+
+    /**
+     * Sends the request a single time, once the limiter grants a permit if it is enabled.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendOnce(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        if (_limiter != null) {
+            return _limiter.submit(() -> _httpClient.sendAsync(request, handler));
+        }
+
+        return _httpClient.sendAsync(request, handler);
+    }
+
+    /**
+     * @return The state of the limiter, or {@code null} if it is disabled
+     */
+    LimiterStats limiterStats() {
+        return _limiter != null ? _limiter.stats() : null;
+    }
+
+    /**
+     * @param action The action performed by the request, used in the error message, e.g. {@code "get entries"}
+     * @return The body of the response
+     *
+     * @throws IOException If the request failed or the server did not respond with status 200
+     */
+    byte[] call(String action, RequestSupplier request) throws IOException {
+        return await(callAsync(action, request));
+    }
+
+    /**
+     * @param action The action performed by the request, used in the error message, e.g. {@code "get entries"}
+     * @param request Builds the request, any exception thrown completes the returned future exceptionally
+     * @return The body of the response, completed exceptionally with an {@link IOException} if the server did not respond with status 200
+     */
+    CompletableFuture<byte[]> callAsync(String action, RequestSupplier request) {
+        return traced(TracedCall.start(action, _metrics), request, byteArrayHandler()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(new IOException("Failed to " + action + ": " + response.statusCode() + " " + new String(response.body(), StandardCharsets.UTF_8)));
+            }
+
+            return response.body();
+        });
+    }
+
+    /**
+     * @return The body of the response as a stream which is read while it arrives, so it is never held in memory as a whole
+     *
+     * @throws IOException If the request failed or the server did not respond with status 200
+     */
+    InputStream callStream(String action, RequestSupplier request) throws IOException {
+        return await(callStreamAsync(action, request));
+    }
+
+    /**
+     * @see #callStream(String, RequestSupplier)
+     */
+    CompletableFuture<InputStream> callStreamAsync(String action, RequestSupplier request) {
+        return traced(TracedCall.start(action, _metrics), request, inputStreamHandler()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                try (InputStream body = response.body()) {
+                    throw new CompletionException(new IOException("Failed to " + action + ": " + response.statusCode() + " " + new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+
+            return response.body();
+        });
+    }
+
+    private HttpResponse.BodyHandler<byte[]> byteArrayHandler() {
+        return _compression != null ? Compression.ofByteArray() : HttpResponse.BodyHandlers.ofByteArray();
+    }
+
+    private HttpResponse.BodyHandler<InputStream> inputStreamHandler() {
+        return _compression != null ? Compression.ofInputStream() : HttpResponse.BodyHandlers.ofInputStream();
+    }
+
+    /**
+     * @return The size of the response body as it was sent, i.e. the {@code content-length} header, or the size of the body if there is none, or -1 if it is unknown
+     */
+    private static long responseBytes(HttpResponse<?> response) {
+        if (response == null) {
+            return -1;
+        }
+        long contentLength = response.headers().firstValueAsLong("content-length").orElse(-1);
+        if (contentLength < 0 && response.body() instanceof byte[] body) {
+            return body.length;
+        }
+        return contentLength;
+    }
+
+    /**
+     * Waits for the future and rethrows its failure the way the blocking API reports it.
+     */
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the MarcSync API");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Opens a connection to the API so that the first real request does not pay for the TCP and TLS handshake.
+     * <p>
+     *     Note: The status code of the response is ignored, only the established connection matters.
+     * </p>
+     */
+    CompletableFuture<Void> warmUp() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(new URI(_baseUrl + "/"))
+                    .timeout(_requestTimeout)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            return _httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, throwable) -> null);
+        } catch (URISyntaxException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @FunctionalInterface
+    interface RequestSupplier {
+        HttpRequest get() throws Exception;
+    }
+
+    @Override
+    public void close() {
+        _httpClient.close();
+    }
+}
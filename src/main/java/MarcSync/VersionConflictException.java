@@ -0,0 +1,18 @@
+package MarcSync;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a versioned {@link Entry#save(String)} if the entry was changed by someone else since it was read, i.e. its version field no longer holds the version of the local entry.
+ * <p>
+ *     Note: Read the entry again, apply the changes to it and save it again.
+ * </p>
+ */
+public class VersionConflictException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,293 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the entries matching a filter and reports the entries which were added, changed or removed since the previous poll.
+ * <p>
+ *     Note: Only a fingerprint of every entry is kept, a hash of its serialized values by {@code _id}. A poll hashes the entries straight from the response and only decodes the added and changed ones, entries without {@code _id} are ignored.
+ *     The poll interval starts at the requested interval, grows by half after every poll without changes up to {@value #MAX_BACKOFF} times the requested interval, and goes back to the requested interval once something changed.
+ * </p>
+ *
+ * @see Collection#watch(EntryData, Duration, Listener)
+ */
+public class Watch implements AutoCloseable {
+
+    private static final int MAX_BACKOFF = 8;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Receives the changes found by a watch, one poll after the other on a thread of the client.
+     */
+    public interface Listener {
+
+        /**
+         * Called for every entry matching the filter on the first poll, and for every entry which matches it since the previous poll.
+         */
+        default void onAdded(Entry entry) {
+        }
+
+        /**
+         * Called for every entry whose values changed since the previous poll.
+         */
+        default void onChanged(Entry entry) {
+        }
+
+        /**
+         * Called for every entry which was deleted or no longer matches the filter since the previous poll.
+         */
+        default void onRemoved(String id) {
+        }
+
+        /**
+         * Called if a poll failed or another method of the listener threw, the watch keeps polling and delivering the other changes.
+         */
+        default void onError(Throwable error) {
+        }
+    }
+
+    private final Collection _collection;
+    private final EntryData _filters;
+    private final long _interval;
+    private final Listener _listener;
+
+    private Map<String, Long> _fingerprints = new HashMap<>();
+    private long _currentInterval;
+    private ScheduledFuture<?> _next;
+    private boolean _closed = false;
+
+    Watch(Collection collection, EntryData filters, Duration interval, Listener listener) {
+        _collection = collection;
+        _filters = filters;
+        _interval = interval.toNanos();
+        _currentInterval = _interval;
+        _listener = listener;
+        schedule(0);
+    }
+
+    /**
+     * @return The delay before the next poll, between the requested interval and {@value #MAX_BACKOFF} times of it
+     */
+    public synchronized Duration getPollInterval() {
+        return Duration.ofNanos(_currentInterval);
+    }
+
+    private synchronized void schedule(long delay) {
+        if (_closed) {
+            return;
+        }
+        try {
+            _next = _collection.client().scheduler().schedule(this::poll, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The client is closed.
+            _closed = true;
+        }
+    }
+
+    private void poll() {
+        _collection.pollAsync(_filters).whenComplete((response, throwable) -> {
+            boolean changed = false;
+            if (throwable != null) {
+                reportError(Collection.unwrap(throwable));
+            } else {
+                try {
+                    changed = apply(response);
+                } catch (RuntimeException | IOException e) {
+                    reportError(e);
+                }
+            }
+
+            long delay;
+            synchronized (this) {
+                _currentInterval = changed ? _interval : Math.min(_currentInterval + _currentInterval / 2, _interval * MAX_BACKOFF);
+                delay = _currentInterval;
+            }
+            schedule(delay);
+        });
+    }
+
+    /**
+     * Compares the fingerprints of the response with the previous ones and reports the differences.
+     * <p>
+     *     Note: The fingerprints are only replaced once every changed entry is decoded, so the changes of a response which cannot be decoded are reported again by the next poll.
+     * </p>
+     *
+     * @return Whether any entry was added, changed or removed
+     */
+    private boolean apply(byte[] response) throws IOException {
+        Map<String, Long> fingerprints = new HashMap<>(Math.max(16, _fingerprints.size() * 4 / 3 + 1));
+        BitSet decode = new BitSet();
+        List<Boolean> added = new ArrayList<>();
+        int index = 0;
+
+        try (EntryReader<Fingerprint> reader = new EntryReader<>(new ByteArrayInputStream(response), Watch::fingerprint)) {
+            while (reader.hasNext()) {
+                Fingerprint fingerprint = reader.next();
+                if (fingerprint.id != null) {
+                    fingerprints.put(fingerprint.id, fingerprint.hash);
+                    Long previous = _fingerprints.get(fingerprint.id);
+                    if (previous == null || previous != fingerprint.hash) {
+                        decode.set(index);
+                        added.add(previous == null);
+                    }
+                }
+                index++;
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String id : _fingerprints.keySet()) {
+            if (!fingerprints.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+
+        if (!decode.isEmpty()) {
+            EntryReader.ElementDecoder<EntryData> decoder = _collection.entryDecoder(null);
+            int[] position = {0};
+            try (EntryReader<EntryData> reader = new EntryReader<>(new ByteArrayInputStream(response), jsonReader -> {
+                if (decode.get(position[0]++)) {
+                    return decoder.decode(jsonReader);
+                }
+                jsonReader.skipValue();
+                return null;
+            })) {
+                int reported = 0;
+                while (reader.hasNext()) {
+                    EntryData entryData = reader.next();
+                    if (entryData == null) {
+                        continue;
+                    }
+                    Entry entry = new Entry(_collection, entryData);
+                    if (added.get(reported++)) {
+                        deliver(() -> _listener.onAdded(entry));
+                    } else {
+                        deliver(() -> _listener.onChanged(entry));
+                    }
+                }
+            }
+        }
+        _fingerprints = fingerprints;
+        for (String id : removed) {
+            deliver(() -> _listener.onRemoved(id));
+        }
+
+        return !decode.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Calls the listener, reporting what it throws to {@link Listener#onError(Throwable)} so that the other changes of the poll are still delivered.
+     */
+    private void deliver(Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            reportError(e);
+        }
+    }
+
+    private void reportError(Throwable error) {
+        try {
+            _listener.onError(error);
+        } catch (RuntimeException ignored) {
+            // A failing error handler must not stop the polls.
+        }
+    }
+
+    /**
+     * Hashes an entry of the response without decoding it, keeping only its {@code _id}.
+     */
+    private static Fingerprint fingerprint(JsonReader reader) throws IOException {
+        String id = null;
+        long hash = FNV_OFFSET;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            hash = hash(hash, name);
+            if (name.equals("_id") && reader.peek() == JsonToken.STRING) {
+                id = reader.nextString();
+                hash = hash(hash, id);
+            } else {
+                hash = hashValue(reader, hash);
+            }
+        }
+        reader.endObject();
+        return new Fingerprint(id, hash);
+    }
+
+    private static long hashValue(JsonReader reader, long hash) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT -> {
+                reader.beginObject();
+                hash = hash(hash, '{');
+                while (reader.hasNext()) {
+                    hash = hashValue(reader, hash(hash, reader.nextName()));
+                }
+                reader.endObject();
+                return hash(hash, '}');
+            }
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                hash = hash(hash, '[');
+                while (reader.hasNext()) {
+                    hash = hashValue(reader, hash);
+                }
+                reader.endArray();
+                return hash(hash, ']');
+            }
+            case STRING -> {
+                return hash(hash(hash, '"'), reader.nextString());
+            }
+            case NUMBER -> {
+                return hash(hash(hash, '#'), reader.nextString());
+            }
+            case BOOLEAN -> {
+                return hash(hash, reader.nextBoolean() ? 't' : 'f');
+            }
+            default -> {
+                reader.nextNull();
+                return hash(hash, 'n');
+            }
+        }
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash(hash, '\0');
+    }
+
+    private static long hash(long hash, char value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private record Fingerprint(String id, long hash) {
+    }
+
+    /**
+     * Stops polling, a poll in progress still reports its changes.
+     */
+    @Override
+    public synchronized void close() {
+        _closed = true;
+        if (_next != null) {
+            _next.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package MarcSync;
+
+import MarcSync.classes.EntryData;
+import MarcSync.classes.WriteBehindOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Merges the pending field updates of an entry into a single update which is sent once the window ends or too many fields are pending.
+ * <p>
+ *     Note: Updates of the same key are last-writer-wins. Batches are sent one after another, so a later batch never overtakes an earlier one.
+ * </p>
+ */
+final class WriteBehind {
+
+    private final WriteBehindOptions _options;
+    private final ScheduledExecutorService _scheduler;
+    private final BiFunction<Object, EntryData, CompletableFuture<Void>> _sender;
+
+    private Map<Object, Pending> _pending = new LinkedHashMap<>();
+    private int _pendingFields = 0;
+    private boolean _scheduled = false;
+    private CompletableFuture<Void> _lastFlush = CompletableFuture.completedFuture(null);
+    private Throwable _failure;
+
+    WriteBehind(WriteBehindOptions options, ScheduledExecutorService scheduler, BiFunction<Object, EntryData, CompletableFuture<Void>> sender) {
+        _options = options;
+        _scheduler = scheduler;
+        _sender = sender;
+    }
+
+    /**
+     * @return A future completed once the merged update carrying these values has been sent
+     */
+    CompletableFuture<Void> update(Object id, EntryData entryData) {
+        Pending pending;
+        boolean flush = false;
+        boolean schedule = false;
+        synchronized (this) {
+            pending = _pending.computeIfAbsent(id, key -> new Pending());
+            int before = pending.data.size();
+            pending.data.putAll(entryData);
+            _pendingFields += pending.data.size() - before;
+
+            if (_pendingFields >= _options.getMaxPendingFields()) {
+                flush = true;
+            } else if (!_scheduled) {
+                _scheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (schedule) {
+            try {
+                _scheduler.schedule(this::flushAsync, _options.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // The client is closed, so there is no window to wait for.
+                flush = true;
+            }
+        }
+        if (flush) {
+            flushAsync();
+        }
+
+        return pending.done;
+    }
+
+    /**
+     * Drops the pending updates of a deleted entry.
+     */
+    void discard(Object id) {
+        Pending pending;
+        synchronized (this) {
+            pending = _pending.remove(id);
+            if (pending == null) {
+                return;
+            }
+            _pendingFields -= pending.data.size();
+        }
+        pending.done.complete(null);
+    }
+
+    /**
+     * Sends the pending updates, after every batch sent before has completed.
+     * <p>
+     *     Note: Only the batch is taken under the lock, it is sent outside of it, since sending may write to the journal and complete the futures of callers inline.
+     * </p>
+     */
+    CompletableFuture<Void> flushAsync() {
+        Map<Object, Pending> batch;
+        CompletableFuture<Void> previous;
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        synchronized (this) {
+            batch = _pending;
+            _pending = new LinkedHashMap<>();
+            _pendingFields = 0;
+            _scheduled = false;
+
+            if (batch.isEmpty()) {
+                return _lastFlush;
+            }
+            previous = _lastFlush;
+            _lastFlush = flushed;
+        }
+
+        previous.handle((ignored, throwable) -> null).thenCompose(ignored -> {
+            List<CompletableFuture<Void>> sent = new ArrayList<>(batch.size());
+            batch.forEach((id, pending) -> sent.add(_sender.apply(id, pending.data).whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    recordFailure(throwable);
+                    pending.done.completeExceptionally(throwable);
+                } else {
+                    pending.done.complete(null);
+                }
+            })));
+            return CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new));
+        }).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                flushed.completeExceptionally(throwable);
+            } else {
+                flushed.complete(null);
+            }
+        });
+
+        return flushed;
+    }
+
+    /**
+     * Sends the pending updates and waits for them.
+     *
+     * @throws IOException The first failure of an update sent in the background since the last flush
+     */
+    void flush() throws IOException {
+        Transport.await(flushAsync().handle((ignored, throwable) -> null));
+
+        Throwable failure;
+        synchronized (this) {
+            failure = _failure;
+            _failure = null;
+        }
+        if (failure != null) {
+            Throwable cause = Collection.unwrap(failure);
+            throw cause instanceof IOException io ? io : new IOException("Failed to update entry", cause);
+        }
+    }
+
+    private synchronized void recordFailure(Throwable throwable) {
+        if (_failure == null) {
+            _failure = throwable;
+        }
+    }
+
+    private static final class Pending {
+        final EntryData data = new EntryData();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+}
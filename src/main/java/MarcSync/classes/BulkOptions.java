@@ -0,0 +1,49 @@
+package MarcSync.classes;
+
+public class BulkOptions {
+    private int chunkSize = 100;
+    private int maxChunkBytes = 1024 * 1024;
+    private int parallelism = 4;
+
+    /**
+     * @param chunkSize The maximum number of entries per chunk
+     * @return These options
+     */
+    public BulkOptions setChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be at least 1");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * @param maxChunkBytes The maximum number of serialized bytes per chunk, a single larger entry still forms its own chunk
+     * @return These options
+     */
+    public BulkOptions setMaxChunkBytes(int maxChunkBytes) {
+        if (maxChunkBytes < 1) throw new IllegalArgumentException("maxChunkBytes must be at least 1");
+        this.maxChunkBytes = maxChunkBytes;
+        return this;
+    }
+
+    /**
+     * @param parallelism The maximum number of chunks in flight at the same time
+     * @return These options
+     */
+    public BulkOptions setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
@@ -0,0 +1,93 @@
+package MarcSync.classes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class BulkResult {
+    private final List<Item> items;
+
+    public BulkResult(List<Item> items) {
+        this.items = new ArrayList<>(items);
+        this.items.sort(Comparator.comparingLong(Item::getIndex));
+    }
+
+    /**
+     * @return The outcome of every item, in input order
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The items which failed, in input order
+     */
+    public List<Item> getFailed() {
+        return items.stream().filter(item -> !item.isSuccess()).toList();
+    }
+
+    public int getSuccessCount() {
+        return (int) items.stream().filter(Item::isSuccess).count();
+    }
+
+    public int getFailureCount() {
+        return items.size() - getSuccessCount();
+    }
+
+    /**
+     * @return Whether every item succeeded
+     */
+    public boolean isSuccess() {
+        return items.stream().allMatch(Item::isSuccess);
+    }
+
+    public static class Item {
+        private final long index;
+        private final Object id;
+        private final EntryData entryData;
+        private final Throwable error;
+
+        public Item(long index, EntryData entryData, Throwable error) {
+            this(index, entryData != null ? entryData.get("_id") : null, entryData, error);
+        }
+
+        public Item(long index, Object id, EntryData entryData, Throwable error) {
+            this.index = index;
+            this.id = id;
+            this.entryData = entryData;
+            this.error = error;
+        }
+
+        /**
+         * @return The position of the item in the input
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The ID of the entry, or {@code null} if it is not known, e.g. of a created entry without {@code _id}
+         */
+        public Object getId() {
+            return id;
+        }
+
+        /**
+         * @return The values of the item, i.e. the created entry or the update applied to the entry, or {@code null} for a delete
+         */
+        public EntryData getEntryData() {
+            return entryData;
+        }
+
+        /**
+         * @return The reason the item failed, or {@code null} if it succeeded
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
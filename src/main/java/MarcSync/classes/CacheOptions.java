@@ -0,0 +1,35 @@
+package MarcSync.classes;
+
+import java.time.Duration;
+
+public class CacheOptions {
+    private int maxSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * @param maxSize The maximum number of cached entries, the least recently used entry is evicted first
+     * @return These options
+     */
+    public CacheOptions setMaxSize(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be at least 1");
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * @param ttl How long a cached entry is served before it is fetched again
+     * @return These options
+     */
+    public CacheOptions setTtl(Duration ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+}
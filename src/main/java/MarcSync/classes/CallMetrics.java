@@ -0,0 +1,65 @@
+package MarcSync.classes;
+
+public class CallMetrics {
+    /**
+     * The operation performed by the call, e.g. {@code "get entries"} or {@code "update entry"}.
+     */
+    public final String operation;
+    public final String collection;
+    public final String method;
+    /**
+     * The status code of the final response, or -1 if no response was received.
+     */
+    public final int statusCode;
+    /**
+     * The size of the request body as it was sent, i.e. after compression.
+     */
+    public final long requestBytes;
+    /**
+     * The size of the response body as it was sent, i.e. before decompression, or -1 if it is streamed without a {@code content-length} header.
+     */
+    public final long responseBytes;
+    /**
+     * The number of times the request was sent, including retries and hedged requests.
+     */
+    public final int attempts;
+    /**
+     * The time spent serializing the request, in nanoseconds.
+     */
+    public final long serializationNanos;
+    /**
+     * The time from sending the request until the response arrived, including retries and waiting for the limiter, in nanoseconds. Streamed responses arrive with their headers.
+     */
+    public final long networkNanos;
+    /**
+     * The failure of the call, or {@code null} if it succeeded.
+     */
+    public final Throwable error;
+
+    public CallMetrics(String operation, String collection, String method, int statusCode, long requestBytes, long responseBytes, int attempts, long serializationNanos, long networkNanos, Throwable error) {
+        this.operation = operation;
+        this.collection = collection;
+        this.method = method;
+        this.statusCode = statusCode;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.attempts = attempts;
+        this.serializationNanos = serializationNanos;
+        this.networkNanos = networkNanos;
+        this.error = error;
+    }
+
+    /**
+     * @return The total latency of the call in nanoseconds
+     */
+    public long getLatencyNanos() {
+        return serializationNanos + networkNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CallMetrics{operation=" + operation + ", collection=" + collection + ", method=" + method + ", statusCode=" + statusCode
+                + ", requestBytes=" + requestBytes + ", responseBytes=" + responseBytes + ", attempts=" + attempts
+                + ", serializationNanos=" + serializationNanos + ", networkNanos=" + networkNanos + ", error=" + error + "}";
+    }
+}
@@ -0,0 +1,235 @@
+package MarcSync.classes;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+public class ClientOptions {
+    private String baseUrl = "https://api.marcsync.dev";
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    private boolean warmUp = false;
+    private Executor executor = null;
+    private CacheOptions cache = null;
+    private boolean compactEntries = false;
+    private boolean coalesceReads = false;
+    private ResiliencePolicy resiliencePolicy = null;
+    private LimiterOptions limiter = null;
+    private MetricsListener metricsListener = null;
+    private CompressionOptions compression = null;
+    private boolean serverProjection = false;
+
+    /**
+     * @param baseUrl The base URL of the MarcSync API, e.g. {@code https://api.marcsync.dev}
+     * @return These options
+     *
+     * <p>
+     *     Note: This is useful if you want to point the client at a local stand-in server.
+     * </p>
+     */
+    public ClientOptions setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return this;
+    }
+
+    /**
+     * @param connectTimeout The maximum time to wait for a connection to be established
+     * @return These options
+     */
+    public ClientOptions setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * @param requestTimeout The maximum time to wait for the response of a single request
+     * @return These options
+     */
+    public ClientOptions setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    /**
+     * @param warmUp Whether the client should open a connection to the API as soon as it is created
+     * @return These options
+     */
+    public ClientOptions setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    /**
+     * @param executor The executor running the completion stages of the asynchronous API, or {@code null} for the default one
+     * @return These options
+     *
+     * <p>
+     *     Note: Use {@code Executors.newVirtualThreadPerTaskExecutor()} if you want thousands of concurrent operations on a handful of carrier threads.
+     * </p>
+     */
+    public ClientOptions setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param cache The options of the entry cache shared by every collection of the client, or {@code null} to disable it
+     * @return These options
+     *
+     * @see CacheOptions
+     */
+    public ClientOptions setCache(CacheOptions cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * @param compactEntries Whether entries read from the API are decoded into {@link CompactEntryData} instead of a {@code HashMap} based {@link EntryData}
+     * @return These options
+     *
+     * <p>
+     *     Note: This is useful if you keep a large number of entries in memory. The field names are shared by every entry of a collection and numbers and booleans are stored unboxed.
+     * </p>
+     */
+    public ClientOptions setCompactEntries(boolean compactEntries) {
+        this.compactEntries = compactEntries;
+        return this;
+    }
+
+    /**
+     * @param coalesceReads Whether identical concurrent reads of a collection share a single request
+     * @return These options
+     *
+     * <p>
+     *     Note: This is useful if many threads read the same entries at the same moment, e.g. after a cache entry expired. Shared reads are buffered as a whole instead of being decoded while they arrive.
+     * </p>
+     */
+    public ClientOptions setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+        return this;
+    }
+
+    /**
+     * @param resiliencePolicy The retry and hedging policy of reads, or {@code null} to fail on the first error
+     * @return These options
+     *
+     * <p>
+     *     Note: Only idempotent reads such as {@code getEntries}, {@code getEntryById}, {@code exists} and {@code fetchCollection} are retried or hedged, writes are never sent twice.
+     * </p>
+     *
+     * @see ResiliencePolicy
+     */
+    public ClientOptions setResiliencePolicy(ResiliencePolicy resiliencePolicy) {
+        this.resiliencePolicy = resiliencePolicy;
+        return this;
+    }
+
+    /**
+     * @param limiter The options of the rate and concurrency limiter of every request of the client, or {@code null} to send requests as soon as they are made
+     * @return These options
+     *
+     * <p>
+     *     Note: This is useful if many threads share one client and the API starts answering with 429 or 503 under load. Retries and hedged reads take a permit of their own.
+     * </p>
+     *
+     * @see LimiterOptions
+     */
+    public ClientOptions setLimiter(LimiterOptions limiter) {
+        this.limiter = limiter;
+        return this;
+    }
+
+    /**
+     * @param metricsListener Receives the latency, sizes, status code and attempts of every call to the API, or {@code null} to not measure calls
+     * @return These options
+     *
+     * <p>
+     *     Note: Calls are also recorded as {@code MarcSync.ApiCall} flight recorder events while such a recording is running, independently of the listener.
+     * </p>
+     *
+     * @see MetricsRecorder
+     */
+    public ClientOptions setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * @param compression The options of the compression of request and response bodies, or {@code null} to send and receive them uncompressed
+     * @return These options
+     *
+     * <p>
+     *     Note: If set, the client accepts gzip and deflate compressed responses and inflates them while they are read. Request bodies are only compressed above {@link CompressionOptions#setRequestThreshold(int)}.
+     * </p>
+     *
+     * @see CompressionOptions
+     */
+    public ClientOptions setCompression(CompressionOptions compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * @param serverProjection Whether the fields of a {@link Projection} are sent to the API as {@code "projection": [...]}, so it leaves the other fields out of the response
+     * @return These options
+     *
+     * <p>
+     *     Note: Only enable this if the API you talk to supports projections. Projections are applied while the response is parsed either way, this only saves the bytes on the wire.
+     * </p>
+     */
+    public ClientOptions setServerProjection(boolean serverProjection) {
+        this.serverProjection = serverProjection;
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public CacheOptions getCache() {
+        return cache;
+    }
+
+    public boolean isCompactEntries() {
+        return compactEntries;
+    }
+
+    public boolean isCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public ResiliencePolicy getResiliencePolicy() {
+        return resiliencePolicy;
+    }
+
+    public LimiterOptions getLimiter() {
+        return limiter;
+    }
+
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public CompressionOptions getCompression() {
+        return compression;
+    }
+
+    public boolean isServerProjection() {
+        return serverProjection;
+    }
+}
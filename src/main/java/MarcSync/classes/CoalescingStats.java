@@ -0,0 +1,18 @@
+package MarcSync.classes;
+
+public class CoalescingStats {
+    public final long calls;
+    public final long folded;
+    public final int inFlight;
+
+    public CoalescingStats(long calls, long folded, int inFlight) {
+        this.calls = calls;
+        this.folded = folded;
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingStats{calls=" + calls + ", folded=" + folded + ", inFlight=" + inFlight + "}";
+    }
+}
@@ -0,0 +1,515 @@
+package MarcSync.classes;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * An {@link EntryData} storing its values in flat arrays indexed by the slots of a shared {@link EntrySchema}.
+ * <p>
+ *     Note: Field names are stored once per collection instead of once per entry, and {@code Double}, {@code Long}, {@code Integer} and {@code Boolean} values are stored unboxed. Reading such a value through {@link #get(Object)} boxes it again, use {@link #getDouble(String)} and {@link #getBoolean(String)} to avoid that. A string equal to the one the previously stored entry holds in the same field shares its instance. Keys must not be {@code null}.
+ * </p>
+ */
+public class CompactEntryData extends EntryData {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte ABSENT = 0;
+    private static final byte OBJECT = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte LONG = 3;
+    private static final byte INTEGER = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+
+    private static final Object[] NO_OBJECTS = new Object[0];
+    private static final long[] NO_NUMBERS = new long[0];
+
+    private final transient EntrySchema schema;
+    private byte[] kinds;
+    private transient Object[] objects = NO_OBJECTS;
+    private long[] numbers = NO_NUMBERS;
+    private int size = 0;
+    private int modCount = 0;
+
+    public CompactEntryData(EntrySchema schema) {
+        this.schema = schema;
+        this.kinds = new byte[schema.size()];
+    }
+
+    public EntrySchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return The numeric value of the key without boxing it, or {@code NaN} if it is absent or not a number
+     */
+    public double getDouble(String key) {
+        int slot = schema.indexOf(key);
+        if (slot < 0 || slot >= kinds.length) {
+            return Double.NaN;
+        }
+
+        return switch (kinds[slot]) {
+            case DOUBLE -> Double.longBitsToDouble(numbers[slot]);
+            case LONG, INTEGER -> numbers[slot];
+            default -> Double.NaN;
+        };
+    }
+
+    /**
+     * @return Whether the value of the key is {@code true}
+     */
+    public boolean getBoolean(String key) {
+        int slot = schema.indexOf(key);
+        return slot >= 0 && slot < kinds.length && kinds[slot] == TRUE;
+    }
+
+    /**
+     * Stores the numeric value of the key without boxing it.
+     */
+    public void putDouble(String key, double value) {
+        storeNumber(claim(key), DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Stores the boolean value of the key.
+     */
+    public void putBoolean(String key, boolean value) {
+        int slot = claim(key);
+        kinds[slot] = value ? TRUE : FALSE;
+        clearObject(slot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = schema.indexOf(key);
+        return slot >= 0 && slot < kinds.length && kinds[slot] != ABSENT;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] != ABSENT && Objects.equals(valueAt(slot), value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = schema.indexOf(key);
+        return slot >= 0 && slot < kinds.length ? valueAt(slot) : null;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        return containsKey(key) ? get(key) : defaultValue;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = schema.slot(Objects.requireNonNull(key, "key"));
+        Object previous = slot < kinds.length ? valueAt(slot) : null;
+        store(claim(key), value);
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        map.forEach(this::put);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        Object current = get(key);
+        return current == null ? put(key, value) : current;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = schema.indexOf(key);
+        if (slot < 0 || slot >= kinds.length || kinds[slot] == ABSENT) {
+            return null;
+        }
+
+        Object previous = valueAt(slot);
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (containsKey(key) && Objects.equals(get(key), value)) {
+            remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        if (containsKey(key) && Objects.equals(get(key), oldValue)) {
+            put(key, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        return containsKey(key) ? put(key, value) : null;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] != ABSENT) {
+                store(slot, function.apply(schema.key(slot), valueAt(slot)));
+            }
+        }
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        Object current = get(key);
+        if (current == null) {
+            Object value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+            return value;
+        }
+        return current;
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Object current = get(key);
+        if (current != null) {
+            Object value = remappingFunction.apply(key, current);
+            if (value != null) {
+                put(key, value);
+            } else {
+                remove(key);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Object value = remappingFunction.apply(key, get(key));
+        if (value != null) {
+            put(key, value);
+        } else {
+            remove(key);
+        }
+        return value;
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        Objects.requireNonNull(value, "value");
+        Object current = get(key);
+        Object merged = current == null ? value : remappingFunction.apply(current, value);
+        if (merged != null) {
+            put(key, merged);
+        } else {
+            remove(key);
+        }
+        return merged;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int slot = 0; slot < kinds.length; slot++) {
+            if (kinds[slot] != ABSENT) {
+                action.accept(schema.key(slot), valueAt(slot));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(kinds, ABSENT);
+        Arrays.fill(objects, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Map.Entry<String, Object> at(int slot) {
+                        return new Field(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                CompactEntryData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    String at(int slot) {
+                        return schema.key(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public void clear() {
+                CompactEntryData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public java.util.Collection<Object> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Object at(int slot) {
+                        return valueAt(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                CompactEntryData.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Object clone() {
+        CompactEntryData copy = new CompactEntryData(schema);
+        copy.kinds = kinds.clone();
+        copy.objects = objects.clone();
+        copy.numbers = numbers.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Serializes as a plain {@link EntryData}, as the schema is local to this process.
+     */
+    private Object writeReplace() {
+        EntryData entryData = new EntryData();
+        forEach(entryData::put);
+        return entryData;
+    }
+
+    private Object valueAt(int slot) {
+        return switch (kinds[slot]) {
+            case OBJECT -> objects[slot];
+            case DOUBLE -> Double.longBitsToDouble(numbers[slot]);
+            case LONG -> numbers[slot];
+            case INTEGER -> (int) numbers[slot];
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+
+    private void store(int slot, Object value) {
+        if (value instanceof Double number) {
+            storeNumber(slot, DOUBLE, Double.doubleToRawLongBits(number));
+        } else if (value instanceof Long number) {
+            storeNumber(slot, LONG, number);
+        } else if (value instanceof Integer number) {
+            storeNumber(slot, INTEGER, number);
+        } else if (value instanceof Boolean bool) {
+            kinds[slot] = bool ? TRUE : FALSE;
+            clearObject(slot);
+        } else {
+            if (objects.length <= slot) {
+                objects = Arrays.copyOf(objects, kinds.length);
+            }
+            kinds[slot] = OBJECT;
+            objects[slot] = value instanceof String string ? schema.shared(slot, string) : value;
+        }
+    }
+
+    private void storeNumber(int slot, byte kind, long bits) {
+        if (numbers.length <= slot) {
+            numbers = Arrays.copyOf(numbers, kinds.length);
+        }
+        kinds[slot] = kind;
+        numbers[slot] = bits;
+        clearObject(slot);
+    }
+
+    private void clearObject(int slot) {
+        if (slot < objects.length) {
+            objects[slot] = null;
+        }
+    }
+
+    private void removeAt(int slot) {
+        kinds[slot] = ABSENT;
+        clearObject(slot);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * @return The slot of the key, counted as present from now on
+     */
+    private int claim(String key) {
+        int slot = schema.slot(Objects.requireNonNull(key, "key"));
+        if (slot >= kinds.length) {
+            kinds = Arrays.copyOf(kinds, Math.max(slot + 1, schema.size()));
+        }
+        if (kinds[slot] == ABSENT) {
+            size++;
+            modCount++;
+        }
+        return slot;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract T at(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return next < kinds.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            next = advance(next + 1);
+            return at(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        private int advance(int from) {
+            while (from < kinds.length && kinds[from] == ABSENT) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    private final class Field implements Map.Entry<String, Object> {
+        private final int slot;
+
+        Field(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.key(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return valueAt(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = valueAt(slot);
+            store(slot, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Map.Entry<?, ?> entry && getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package MarcSync.classes;
+
+import java.util.zip.Deflater;
+
+public class CompressionOptions {
+    private int requestThreshold = -1;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * @param requestThreshold The minimum size in bytes of a request body to send it gzipped, or -1 to never compress request bodies
+     * @return These options
+     *
+     * <p>
+     *     Note: Only enable this if the server accepts {@code content-encoding: gzip}. Small bodies are sent as they are since compressing them saves less than it costs.
+     * </p>
+     */
+    public CompressionOptions setRequestThreshold(int requestThreshold) {
+        if (requestThreshold < -1) throw new IllegalArgumentException("requestThreshold must be -1 or at least 0");
+        this.requestThreshold = requestThreshold;
+        return this;
+    }
+
+    /**
+     * @param level The gzip level of request bodies, from 1 (fastest) to 9 (smallest), or -1 for the default
+     * @return These options
+     */
+    public CompressionOptions setLevel(int level) {
+        if (level < -1 || level > 9) throw new IllegalArgumentException("level must be between -1 and 9");
+        this.level = level;
+        return this;
+    }
+
+    public int getRequestThreshold() {
+        return requestThreshold;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+}
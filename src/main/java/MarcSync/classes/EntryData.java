@@ -5,7 +5,9 @@ import com.google.gson.Gson;
 import java.util.HashMap;
 
 public class EntryData extends HashMap<String, Object> {
+    private static final Gson GSON = new Gson();
+
     public static EntryData fromJson(String json) {
-        return new Gson().fromJson(json, EntryData.class);
+        return GSON.fromJson(json, EntryData.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package MarcSync.classes;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The interned field names of the entries of one collection, shared by every {@link CompactEntryData} of it.
+ * <p>
+ *     Note: Slots are only ever added, so the slot of a field name never changes.
+ * </p>
+ */
+public class EntrySchema {
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile String[] keys = new String[0];
+    private volatile String[] lastValues = new String[0];
+
+    /**
+     * @return The slot of the field name, or -1 if no entry of the schema has used it yet
+     */
+    public int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+
+        Integer slot = slots.get(key);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * @return The slot of the field name, added to the schema if it is new
+     */
+    public int slot(String key) {
+        Integer slot = slots.get(key);
+        return slot != null ? slot : addSlot(key);
+    }
+
+    /**
+     * @return The interned field name of the slot
+     */
+    public String key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @return The number of field names in the schema
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return The last string stored in the slot if it equals the value, otherwise the value, which becomes the last one
+     *
+     * <p>
+     *     Note: This way a field holding the same string in consecutive entries, e.g. a status or a type, keeps a single instance of it. Concurrent callers may replace each other's last value, which only costs a missed share.
+     * </p>
+     */
+    String shared(int slot, String value) {
+        String[] values = lastValues;
+        if (slot >= values.length) {
+            return value;
+        }
+
+        String last = values[slot];
+        if (value.equals(last)) {
+            return last;
+        }
+        values[slot] = value;
+        return value;
+    }
+
+    private synchronized int addSlot(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+
+        String[] grown = Arrays.copyOf(keys, keys.length + 1);
+        grown[keys.length] = key;
+        keys = grown;
+        lastValues = Arrays.copyOf(lastValues, grown.length);
+        slots.put(key, keys.length - 1);
+        return keys.length - 1;
+    }
+}
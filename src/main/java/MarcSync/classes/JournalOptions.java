@@ -0,0 +1,63 @@
+package MarcSync.classes;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class JournalOptions {
+    private final Path directory;
+    private long segmentSize = 64L * 1024 * 1024;
+    private Duration retryDelay = Duration.ofMillis(100);
+    private Duration maxRetryDelay = Duration.ofSeconds(30);
+
+    /**
+     * @param directory The directory holding the journals, every collection keeps its journal in a subdirectory named after it
+     */
+    public JournalOptions(Path directory) {
+        if (directory == null) throw new IllegalArgumentException("directory must not be null");
+        this.directory = directory;
+    }
+
+    /**
+     * @param segmentSize The size in bytes after which the journal continues in a new segment file, segments are deleted once every write in them has been sent
+     * @return These options
+     */
+    public JournalOptions setSegmentSize(long segmentSize) {
+        if (segmentSize < 1) throw new IllegalArgumentException("segmentSize must be at least 1");
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * @param retryDelay How long to wait before sending a write again after the API could not be reached or answered with 408, 429 or a 5xx status, doubled on every consecutive failure
+     * @return These options
+     */
+    public JournalOptions setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    /**
+     * @param maxRetryDelay The upper bound of the doubled retry delay
+     * @return These options
+     */
+    public JournalOptions setMaxRetryDelay(Duration maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+        return this;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    public Duration getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+}
@@ -0,0 +1,139 @@
+package MarcSync.classes;
+
+import java.time.Duration;
+
+public class LimiterOptions {
+    private double requestsPerSecond = 0;
+    private int burst = 0;
+    private int initialConcurrency = 16;
+    private int minConcurrency = 1;
+    private int maxConcurrency = 256;
+    private Duration targetLatency = Duration.ofSeconds(1);
+    private double backoffRatio = 0.5;
+    private Duration queueTimeout = null;
+    private int maxQueueSize = Integer.MAX_VALUE;
+
+    /**
+     * @param requestsPerSecond The rate at which requests may be sent, or 0 for no rate limit
+     * @return These options
+     */
+    public LimiterOptions setRequestsPerSecond(double requestsPerSecond) {
+        if (requestsPerSecond < 0) throw new IllegalArgumentException("requestsPerSecond must not be negative");
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param burst The number of requests which may be sent at once after a quiet period, defaults to one second worth of requests
+     * @return These options
+     */
+    public LimiterOptions setBurst(int burst) {
+        if (burst < 0) throw new IllegalArgumentException("burst must not be negative");
+        this.burst = burst;
+        return this;
+    }
+
+    /**
+     * @param initialConcurrency The number of requests which may be in flight before the limit has adapted
+     * @return These options
+     */
+    public LimiterOptions setInitialConcurrency(int initialConcurrency) {
+        if (initialConcurrency < 1) throw new IllegalArgumentException("initialConcurrency must be at least 1");
+        this.initialConcurrency = initialConcurrency;
+        return this;
+    }
+
+    /**
+     * @param minConcurrency The lowest the concurrency limit decreases to
+     * @return These options
+     */
+    public LimiterOptions setMinConcurrency(int minConcurrency) {
+        if (minConcurrency < 1) throw new IllegalArgumentException("minConcurrency must be at least 1");
+        this.minConcurrency = minConcurrency;
+        return this;
+    }
+
+    /**
+     * @param maxConcurrency The highest the concurrency limit increases to
+     * @return These options
+     */
+    public LimiterOptions setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @param targetLatency The latency above which a response is treated as a sign of overload, like a 429
+     * @return These options
+     */
+    public LimiterOptions setTargetLatency(Duration targetLatency) {
+        this.targetLatency = targetLatency;
+        return this;
+    }
+
+    /**
+     * @param backoffRatio The factor the concurrency limit is multiplied with on overload, e.g. {@code 0.5}
+     * @return These options
+     */
+    public LimiterOptions setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * @param queueTimeout How long a request may wait for a permit before it fails, or {@code null} to wait indefinitely
+     * @return These options
+     */
+    public LimiterOptions setQueueTimeout(Duration queueTimeout) {
+        this.queueTimeout = queueTimeout;
+        return this;
+    }
+
+    /**
+     * @param maxQueueSize The number of waiting requests after which further requests fail immediately
+     * @return These options
+     */
+    public LimiterOptions setMaxQueueSize(int maxQueueSize) {
+        if (maxQueueSize < 0) throw new IllegalArgumentException("maxQueueSize must not be negative");
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst > 0 ? burst : (int) Math.max(1, Math.ceil(requestsPerSecond));
+    }
+
+    public int getInitialConcurrency() {
+        return initialConcurrency;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public Duration getTargetLatency() {
+        return targetLatency;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public Duration getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+}
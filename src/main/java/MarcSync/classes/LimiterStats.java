@@ -0,0 +1,27 @@
+package MarcSync.classes;
+
+public class LimiterStats {
+    public final int concurrencyLimit;
+    public final int inFlight;
+    public final int queued;
+    public final int maxQueued;
+    public final long rejected;
+    public final long timedOut;
+    public final long overloads;
+
+    public LimiterStats(int concurrencyLimit, int inFlight, int queued, int maxQueued, long rejected, long timedOut, long overloads) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.maxQueued = maxQueued;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+        this.overloads = overloads;
+    }
+
+    @Override
+    public String toString() {
+        return "LimiterStats{concurrencyLimit=" + concurrencyLimit + ", inFlight=" + inFlight + ", queued=" + queued + ", maxQueued=" + maxQueued
+                + ", rejected=" + rejected + ", timedOut=" + timedOut + ", overloads=" + overloads + "}";
+    }
+}
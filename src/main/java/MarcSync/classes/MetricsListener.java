@@ -0,0 +1,19 @@
+package MarcSync.classes;
+
+/**
+ * Receives the metrics of every call the client makes to the MarcSync API.
+ * <p>
+ *     Note: The listener is invoked on the thread completing the call, so it should return quickly. Exceptions thrown by it are ignored.
+ * </p>
+ *
+ * @see MetricsRecorder
+ * @see ClientOptions#setMetricsListener(MetricsListener)
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+    /**
+     * @param metrics The metrics of a completed call, successful or not
+     */
+    void onCall(CallMetrics metrics);
+}
@@ -0,0 +1,123 @@
+package MarcSync.classes;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link MetricsListener} keeping a latency histogram, byte counts and status codes per operation and per collection.
+ * <p>
+ *     Note: The histogram buckets are 1/8 of a power of two wide, so reported percentiles are at most 12.5% above the real latency.
+ * </p>
+ */
+public class MetricsRecorder implements MetricsListener {
+
+    private final Map<String, Recorder> _recorders = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCall(CallMetrics metrics) {
+        _recorders.computeIfAbsent(metrics.operation, key -> new Recorder()).record(metrics);
+        if (metrics.collection != null) {
+            _recorders.computeIfAbsent(metrics.operation + '\n' + metrics.collection, key -> new Recorder()).record(metrics);
+        }
+    }
+
+    /**
+     * @param operation The operation, e.g. {@code "get entries"}
+     * @return The statistics of the operation over every collection, or {@code null} if it was never performed
+     */
+    public OperationStats getStats(String operation) {
+        Recorder recorder = _recorders.get(operation);
+        return recorder != null ? recorder.snapshot() : null;
+    }
+
+    /**
+     * @param operation The operation, e.g. {@code "get entries"}
+     * @param collection The name of the collection
+     * @return The statistics of the operation on the collection, or {@code null} if it was never performed on it
+     */
+    public OperationStats getStats(String operation, String collection) {
+        Recorder recorder = _recorders.get(operation + '\n' + collection);
+        return recorder != null ? recorder.snapshot() : null;
+    }
+
+    /**
+     * @return The operations performed so far
+     */
+    public Set<String> getOperations() {
+        Set<String> operations = new TreeSet<>();
+        for (String key : _recorders.keySet()) {
+            if (key.indexOf('\n') < 0) {
+                operations.add(key);
+            }
+        }
+        return operations;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("MetricsRecorder{");
+        for (String operation : getOperations()) {
+            builder.append('\n').append("  ").append(operation).append('=').append(getStats(operation));
+        }
+        return builder.append("\n}").toString();
+    }
+
+    private static final class Recorder {
+        private static final int SUB_BUCKETS = 8;
+
+        private final long[] _buckets = new long[SUB_BUCKETS * 61];
+        private final Map<Integer, Long> _statusCodes = new TreeMap<>();
+        private long _count, _errors, _retries, _requestBytes, _responseBytes, _serializationNanos, _networkNanos, _max;
+
+        synchronized void record(CallMetrics metrics) {
+            long latency = Math.max(0, metrics.getLatencyNanos());
+            _buckets[bucket(latency)]++;
+            _max = Math.max(_max, latency);
+            _count++;
+            _errors += metrics.error != null || metrics.statusCode < 200 || metrics.statusCode >= 300 ? 1 : 0;
+            _retries += Math.max(0, metrics.attempts - 1);
+            _requestBytes += Math.max(0, metrics.requestBytes);
+            _responseBytes += Math.max(0, metrics.responseBytes);
+            _serializationNanos += metrics.serializationNanos;
+            _networkNanos += metrics.networkNanos;
+            _statusCodes.merge(metrics.statusCode, 1L, Long::sum);
+        }
+
+        synchronized OperationStats snapshot() {
+            return new OperationStats(_count, _errors, _retries, _requestBytes, _responseBytes, _serializationNanos, _networkNanos,
+                    percentile(0.50), percentile(0.95), percentile(0.99), _max, new TreeMap<>(_statusCodes));
+        }
+
+        private long percentile(double percentile) {
+            long rank = (long) Math.ceil(percentile * _count);
+            long seen = 0;
+            for (int i = 0; i < _buckets.length; i++) {
+                seen += _buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperBound(i), _max);
+                }
+            }
+            return 0;
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            return SUB_BUCKETS * (exponent - 2) + (int) ((value >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + 2;
+            long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+            return lower + (1L << (exponent - 3)) - 1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package MarcSync.classes;
+
+import java.util.Map;
+
+public class OperationStats {
+    public final long count;
+    /**
+     * The number of calls which failed or were answered with a status code other than 2xx.
+     */
+    public final long errors;
+    /**
+     * The number of requests sent on top of the first attempt of each call, i.e. retries and hedged requests.
+     */
+    public final long retries;
+    public final long requestBytes;
+    public final long responseBytes;
+    public final long serializationNanos;
+    public final long networkNanos;
+    public final long p50Nanos;
+    public final long p95Nanos;
+    public final long p99Nanos;
+    public final long maxNanos;
+    /**
+     * The number of calls per status code of the final response, -1 counting the calls without a response.
+     */
+    public final Map<Integer, Long> statusCodes;
+
+    public OperationStats(long count, long errors, long retries, long requestBytes, long responseBytes, long serializationNanos, long networkNanos,
+                          long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos, Map<Integer, Long> statusCodes) {
+        this.count = count;
+        this.errors = errors;
+        this.retries = retries;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.serializationNanos = serializationNanos;
+        this.networkNanos = networkNanos;
+        this.p50Nanos = p50Nanos;
+        this.p95Nanos = p95Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.statusCodes = statusCodes;
+    }
+
+    /**
+     * @return The mean latency in nanoseconds
+     */
+    public long getMeanNanos() {
+        return count == 0 ? 0 : (serializationNanos + networkNanos) / count;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{count=" + count + ", errors=" + errors + ", retries=" + retries + ", requestBytes=" + requestBytes + ", responseBytes=" + responseBytes
+                + ", serializationNanos=" + serializationNanos + ", networkNanos=" + networkNanos + ", p50Nanos=" + p50Nanos + ", p95Nanos=" + p95Nanos
+                + ", p99Nanos=" + p99Nanos + ", maxNanos=" + maxNanos + ", statusCodes=" + statusCodes + "}";
+    }
+}
@@ -0,0 +1,93 @@
+package MarcSync.classes;
+
+import java.util.List;
+
+public class PipelineResult {
+    private final List<Item> items;
+
+    public PipelineResult(List<Item> items) {
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * @return The outcome of every operation, in submission order
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The operations which failed, in submission order
+     */
+    public List<Item> getFailed() {
+        return items.stream().filter(item -> !item.isSuccess()).toList();
+    }
+
+    /**
+     * @return Whether every operation succeeded
+     */
+    public boolean isSuccess() {
+        return items.stream().allMatch(Item::isSuccess);
+    }
+
+    public static class Item {
+        private final int index;
+        private final String collectionName;
+        private final String operation;
+        private final Object id;
+        private final EntryData entryData;
+        private final Throwable error;
+
+        public Item(int index, String collectionName, String operation, Object id, EntryData entryData, Throwable error) {
+            this.index = index;
+            this.collectionName = collectionName;
+            this.operation = operation;
+            this.id = id;
+            this.entryData = entryData;
+            this.error = error;
+        }
+
+        /**
+         * @return The position of the operation in the pipeline
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getCollectionName() {
+            return collectionName;
+        }
+
+        /**
+         * @return What the operation did, e.g. {@code "create entry"}
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return The ID of the entry, or {@code null} for operations on a filter and entries created without {@code _id}
+         */
+        public Object getId() {
+            return id;
+        }
+
+        /**
+         * @return The values of the operation, i.e. the created entry or the update, or {@code null} for a delete
+         */
+        public EntryData getEntryData() {
+            return entryData;
+        }
+
+        /**
+         * @return The reason the operation failed, or {@code null} if it succeeded
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
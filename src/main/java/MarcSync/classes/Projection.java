@@ -0,0 +1,40 @@
+package MarcSync.classes;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The fields to read of every entry, {@code _id} is always read.
+ * <p>
+ *     Note: Fields which are not part of the projection are skipped while the response is parsed, so they are never materialized. They are only left out of the response itself if {@link ClientOptions#setServerProjection(boolean)} is enabled.
+ * </p>
+ */
+public final class Projection {
+    private final Set<String> fields;
+
+    private Projection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields The fields to read
+     * @return A projection onto the fields and {@code _id}
+     */
+    public static Projection of(String... fields) {
+        return new Projection(Set.copyOf(Arrays.asList(fields)));
+    }
+
+    /**
+     * @return The fields to read, without {@code _id} unless it was passed explicitly
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return Whether the field is read
+     */
+    public boolean includes(String field) {
+        return fields.contains(field) || field.equals("_id");
+    }
+}
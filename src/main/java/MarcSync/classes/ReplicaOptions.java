@@ -0,0 +1,58 @@
+package MarcSync.classes;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class ReplicaOptions {
+    private List<String> indexes = List.of();
+    private Duration refreshInterval = Duration.ofMinutes(1);
+    private Path snapshotFile = null;
+
+    /**
+     * @param fields The fields to build a hash index on, e.g. the fields you filter by
+     * @return These options
+     *
+     * <p>
+     *     Note: A query filtering on an indexed field only looks at the entries with the filtered value, any other query scans every entry of the replica. {@code _id} is always indexed.
+     * </p>
+     */
+    public ReplicaOptions setIndexes(String... fields) {
+        this.indexes = List.of(fields);
+        return this;
+    }
+
+    /**
+     * @param refreshInterval How often the replica is loaded again to pick up the writes of other clients, or {@code null} to only load it once
+     * @return These options
+     */
+    public ReplicaOptions setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        return this;
+    }
+
+    /**
+     * @param snapshotFile The file the replica is saved to after every refresh and loaded from when the collection is replicated, or {@code null} to always load it from the API
+     * @return These options
+     *
+     * <p>
+     *     Note: This is useful for reference collections a service needs right after it starts. The replica is served from the snapshot at once while it is loaded from the API in the background. A missing, corrupt or outdated snapshot is ignored.
+     * </p>
+     */
+    public ReplicaOptions setSnapshotFile(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        return this;
+    }
+
+    public List<String> getIndexes() {
+        return indexes;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+}
@@ -0,0 +1,121 @@
+package MarcSync.classes;
+
+import java.time.Duration;
+import java.util.Set;
+
+public class ResiliencePolicy {
+    private int maxAttempts = 3;
+    private Duration baseDelay = Duration.ofMillis(100);
+    private Duration maxDelay = Duration.ofSeconds(5);
+    private Duration maxRetryAfter = Duration.ofSeconds(30);
+    private Set<Integer> retryStatusCodes = Set.of(408, 429, 500, 502, 503, 504);
+    private boolean hedging = false;
+    private double hedgePercentile = 0.95;
+    private Duration minHedgeDelay = Duration.ofMillis(10);
+
+    /**
+     * @param maxAttempts The maximum number of attempts of a read, including the first one
+     * @return This policy
+     */
+    public ResiliencePolicy setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be at least 1");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param baseDelay The delay before the first retry, doubled for every further retry and randomized by full jitter
+     * @return This policy
+     */
+    public ResiliencePolicy setBaseDelay(Duration baseDelay) {
+        this.baseDelay = baseDelay;
+        return this;
+    }
+
+    /**
+     * @param maxDelay The upper bound of the backoff delay
+     * @return This policy
+     */
+    public ResiliencePolicy setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * @param maxRetryAfter The longest {@code Retry-After} delay which is honored, a longer one fails the read instead
+     * @return This policy
+     */
+    public ResiliencePolicy setMaxRetryAfter(Duration maxRetryAfter) {
+        this.maxRetryAfter = maxRetryAfter;
+        return this;
+    }
+
+    /**
+     * @param retryStatusCodes The status codes which are retried
+     * @return This policy
+     */
+    public ResiliencePolicy setRetryStatusCodes(Set<Integer> retryStatusCodes) {
+        this.retryStatusCodes = Set.copyOf(retryStatusCodes);
+        return this;
+    }
+
+    /**
+     * @param hedging Whether a second read is sent if the first one has not answered within the hedge delay, the first answer wins
+     * @return This policy
+     */
+    public ResiliencePolicy setHedging(boolean hedging) {
+        this.hedging = hedging;
+        return this;
+    }
+
+    /**
+     * @param hedgePercentile The percentile of the recent read latencies used as hedge delay, e.g. {@code 0.95}
+     * @return This policy
+     */
+    public ResiliencePolicy setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile <= 0 || hedgePercentile >= 1) throw new IllegalArgumentException("hedgePercentile must be between 0 and 1");
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    /**
+     * @param minHedgeDelay The lower bound of the hedge delay
+     * @return This policy
+     */
+    public ResiliencePolicy setMinHedgeDelay(Duration minHedgeDelay) {
+        this.minHedgeDelay = minHedgeDelay;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getBaseDelay() {
+        return baseDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public Duration getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public Duration getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+}
@@ -0,0 +1,38 @@
+package MarcSync.classes;
+
+public class ScanOptions {
+    private int pageSize = 1000;
+    private int parallelism = 1;
+
+    /**
+     * @param pageSize The maximum number of entries fetched per request
+     * @return These options
+     */
+    public ScanOptions setPageSize(int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be at least 1");
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param parallelism The maximum number of pages fetched ahead of the consumer, concurrently
+     * @return These options
+     *
+     * <p>
+     *     Note: A new page is only requested once the consumer moves on to the next page, so at most this many pages are held in memory however slowly the stream is consumed.
+     * </p>
+     */
+    public ScanOptions setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
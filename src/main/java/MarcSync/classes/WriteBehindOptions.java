@@ -0,0 +1,35 @@
+package MarcSync.classes;
+
+import java.time.Duration;
+
+public class WriteBehindOptions {
+    private Duration window = Duration.ofMillis(100);
+    private int maxPendingFields = 1000;
+
+    /**
+     * @param window How long updates are collected before they are sent
+     * @return These options
+     */
+    public WriteBehindOptions setWindow(Duration window) {
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * @param maxPendingFields The number of pending fields, summed over all entries, after which the updates are sent without waiting for the window to end
+     * @return These options
+     */
+    public WriteBehindOptions setMaxPendingFields(int maxPendingFields) {
+        if (maxPendingFields < 1) throw new IllegalArgumentException("maxPendingFields must be at least 1");
+        this.maxPendingFields = maxPendingFields;
+        return this;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public int getMaxPendingFields() {
+        return maxPendingFields;
+    }
+}
@@ -0,0 +1,150 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.CompressionOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private static Transport transport(StubHttpServer server) {
+        return new Transport("token", new ClientOptions().setBaseUrl(server.baseUrl()).setCompression(new CompressionOptions().setRequestThreshold(THRESHOLD)));
+    }
+
+    private static byte[] entries(int count) {
+        StringBuilder json = new StringBuilder("{\"success\":true,\"entries\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"_id\":\"").append(i).append("\",\"name\":\"entry ").append(i).append(" \\u00e4\\u00f6\\u00fc\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void alwaysSendsAcceptEncoding() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 200, "{}"));
+             Transport transport = transport(server)) {
+            transport.call("get entries", () -> transport.request("GET", "/v1/entries/test", null));
+            transport.call("create entry", () -> transport.request("POST", "/v0/entries/test", "{\"data\":{}}".getBytes(StandardCharsets.UTF_8)));
+            transport.call("update entries", () -> transport.request("PUT", "/v1/entries/test", entries(100)));
+
+            assertEquals(3, server.requests().size());
+            for (StubHttpServer.Request request : server.requests()) {
+                assertEquals(Compression.ACCEPT_ENCODING, request.headers().getFirst("accept-encoding"), request.method());
+            }
+        }
+    }
+
+    @Test
+    void gzipsOnlyBodiesAboveTheThreshold() throws Exception {
+        byte[] small = "{\"data\":{\"name\":\"small\"}}".getBytes(StandardCharsets.UTF_8);
+        byte[] large = entries(100);
+        assertTrue(small.length < THRESHOLD && large.length >= THRESHOLD);
+
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 200, "{}"));
+             Transport transport = transport(server)) {
+            transport.call("create entry", () -> transport.request("POST", "/v0/entries/test", small));
+            transport.call("update entries", () -> transport.request("PUT", "/v1/entries/test", large));
+
+            StubHttpServer.Request plain = server.requests().get(0);
+            assertFalse(plain.headers().containsKey("content-encoding"));
+            assertArrayEquals(small, plain.body());
+
+            StubHttpServer.Request gzipped = server.requests().get(1);
+            assertEquals("gzip", gzipped.headers().getFirst("content-encoding"));
+            assertTrue(gzipped.body().length < large.length);
+            assertArrayEquals(large, gunzip(gzipped.body()));
+        }
+    }
+
+    @Test
+    void neverGzipsWithoutAThreshold() throws Exception {
+        byte[] large = entries(100);
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 200, "{}"));
+             Transport transport = new Transport("token", new ClientOptions().setBaseUrl(server.baseUrl()).setCompression(new CompressionOptions()))) {
+            transport.call("update entries", () -> transport.request("PUT", "/v1/entries/test", large));
+
+            StubHttpServer.Request request = server.requests().get(0);
+            assertEquals(Compression.ACCEPT_ENCODING, request.headers().getFirst("accept-encoding"));
+            assertFalse(request.headers().containsKey("content-encoding"));
+            assertArrayEquals(large, request.body());
+        }
+    }
+
+    @Test
+    void decompressesBufferedResponses() throws Exception {
+        assertDecompressed(false);
+    }
+
+    @Test
+    void decompressesStreamedResponses() throws Exception {
+        assertDecompressed(true);
+    }
+
+    private static void assertDecompressed(boolean streamed) throws Exception {
+        byte[] body = entries(500);
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> {
+            String encoding = request.path().substring(request.path().lastIndexOf('/') + 1);
+            switch (encoding) {
+                case "gzip" -> {
+                    exchange.getResponseHeaders().set("content-encoding", "gzip");
+                    StubHttpServer.respond(exchange, 200, gzip(body));
+                }
+                case "deflate" -> {
+                    exchange.getResponseHeaders().set("content-encoding", "deflate");
+                    StubHttpServer.respond(exchange, 200, deflate(body));
+                }
+                default -> StubHttpServer.respond(exchange, 200, body);
+            }
+        }); Transport transport = transport(server)) {
+            for (String encoding : new String[]{"gzip", "deflate", "identity"}) {
+                byte[] read;
+                if (streamed) {
+                    try (InputStream in = transport.callStream("get entries", () -> transport.request("GET", "/v1/entries/" + encoding, null))) {
+                        read = in.readAllBytes();
+                    }
+                } else {
+                    read = transport.call("get entries", () -> transport.request("GET", "/v1/entries/" + encoding, null));
+                }
+
+                assertArrayEquals(body, read, encoding);
+            }
+        }
+    }
+}
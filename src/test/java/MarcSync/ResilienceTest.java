@@ -0,0 +1,146 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.ResiliencePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilienceTest {
+
+    private static final byte[] OK = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private static Transport transport(StubHttpServer server, ResiliencePolicy policy) {
+        return new Transport("token", new ClientOptions().setBaseUrl(server.baseUrl()).setResiliencePolicy(policy));
+    }
+
+    private static ResiliencePolicy fastPolicy() {
+        return new ResiliencePolicy().setBaseDelay(Duration.ofMillis(1)).setMaxDelay(Duration.ofMillis(5));
+    }
+
+    @Test
+    void waitsForRetryAfterInSeconds() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> {
+            if (call == 1) {
+                exchange.getResponseHeaders().set("retry-after", "1");
+                StubHttpServer.respond(exchange, 429, "{}");
+            } else {
+                StubHttpServer.respond(exchange, 200, OK);
+            }
+        }); Transport transport = transport(server, fastPolicy())) {
+            long start = System.nanoTime();
+            byte[] body = transport.call("get entries", () -> transport.request("GET", "/v1/entries/test", null));
+
+            assertArrayEquals(OK, body);
+            assertEquals(2, server.requests().size());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900), "retried before the Retry-After delay");
+        }
+    }
+
+    @Test
+    void waitsForRetryAfterAsHttpDate() throws Exception {
+        String retryAt = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(3));
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> {
+            if (call == 1) {
+                exchange.getResponseHeaders().set("retry-after", retryAt);
+                StubHttpServer.respond(exchange, 429, "{}");
+            } else {
+                StubHttpServer.respond(exchange, 200, OK);
+            }
+        }); Transport transport = transport(server, fastPolicy())) {
+            long start = System.nanoTime();
+            byte[] body = transport.call("get entries", () -> transport.request("GET", "/v1/entries/test", null));
+
+            assertArrayEquals(OK, body);
+            assertEquals(2, server.requests().size());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1500), "retried before the Retry-After date");
+        }
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, call < 3 ? 502 : 200, call < 3 ? "{}".getBytes(StandardCharsets.UTF_8) : OK));
+             Transport transport = transport(server, fastPolicy().setMaxAttempts(3))) {
+            byte[] body = transport.call("get entries", () -> transport.request("GET", "/v1/entries/test", null));
+
+            assertArrayEquals(OK, body);
+            assertEquals(3, server.requests().size());
+        }
+    }
+
+    @Test
+    void retriesServerErrorsUpToMaxAttempts() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 503, "{}"));
+             Transport transport = transport(server, fastPolicy().setMaxAttempts(4))) {
+            IOException error = assertThrows(IOException.class, () -> transport.call("get entries", () -> transport.request("GET", "/v1/entries/test", null)));
+
+            assertTrue(error.getMessage().contains("503"), error.getMessage());
+            assertEquals(4, server.requests().size());
+        }
+    }
+
+    @Test
+    void neverRetriesWrites() throws Exception {
+        for (String method : new String[]{"PUT", "POST", "DELETE"}) {
+            try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 503, "{}"));
+                 Transport transport = transport(server, fastPolicy().setMaxAttempts(5))) {
+                byte[] body = method.equals("DELETE") ? null : "{\"data\":{}}".getBytes(StandardCharsets.UTF_8);
+
+                assertThrows(IOException.class, () -> transport.call("write entries", () -> transport.request(method, "/v1/entries/test", body)));
+                assertEquals(1, server.requests().size(), method + " was retried");
+            }
+        }
+    }
+
+    @Test
+    void hedgesSlowReadsAndCancelsTheLoser() throws Exception {
+        AtomicInteger slowCalls = new AtomicInteger();
+        CountDownLatch loserAborted = new CountDownLatch(1);
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> {
+            if (!request.path().endsWith("/slow") || slowCalls.incrementAndGet() > 1) {
+                StubHttpServer.respond(exchange, 200, OK);
+                return;
+            }
+
+            // Trickles the body until the client gives up on the exchange, which fails the next write
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 200; i++) {
+                    out.write(' ');
+                    out.flush();
+                    Thread.sleep(25);
+                }
+            } catch (IOException e) {
+                loserAborted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }); Transport transport = transport(server, fastPolicy().setHedging(true).setMinHedgeDelay(Duration.ofMillis(50)))) {
+            for (int i = 0; i < 25; i++) {
+                transport.call("get entries", () -> transport.request("GET", "/v1/entries/fast", null));
+            }
+
+            long start = System.nanoTime();
+            byte[] body = transport.call("get entries", () -> transport.request("GET", "/v1/entries/slow", null));
+
+            assertArrayEquals(OK, body);
+            assertEquals(2, slowCalls.get());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "the hedged request did not win");
+            assertTrue(loserAborted.await(5, TimeUnit.SECONDS), "the losing request was not cancelled");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package MarcSync;
+
+import MarcSync.classes.ClientOptions;
+import MarcSync.classes.EntryData;
+import MarcSync.classes.ScanOptions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ScannerTest {
+
+    private static final String PAGE = "{\"success\":true,\"entries\":[{\"_id\":\"a\"},{\"_id\":\"b\"},{\"_id\":\"c\"}]}";
+
+    @Test
+    void endsWhenTheServerIgnoresTheOffset() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 200, PAGE));
+             Client client = new Client("token", new ClientOptions().setBaseUrl(server.baseUrl()))) {
+            Collection collection = client.getCollection("test");
+
+            List<Object> ids = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                try (Stream<Entry> entries = collection.scan(new EntryData(), new ScanOptions().setPageSize(3).setParallelism(2))) {
+                    return entries.map(entry -> entry.getValues().get("_id")).toList();
+                }
+            });
+
+            assertEquals(List.of("a", "b", "c"), ids);
+        }
+    }
+
+    @Test
+    void sendsNothingUntilConsumed() throws Exception {
+        try (StubHttpServer server = new StubHttpServer((exchange, request, call) -> StubHttpServer.respond(exchange, 200, PAGE));
+             Client client = new Client("token", new ClientOptions().setBaseUrl(server.baseUrl()))) {
+            Stream<Entry> entries = client.getCollection("test").scan(new EntryData(), new ScanOptions().setPageSize(3).setParallelism(2));
+            entries.close();
+
+            assertEquals(0, server.requests().size());
+        }
+    }
+}
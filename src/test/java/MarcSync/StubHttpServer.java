@@ -0,0 +1,84 @@
+package MarcSync;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP server answering every request with a handler, recording the requests it received.
+ */
+final class StubHttpServer implements AutoCloseable {
+
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * @param call The number of the request, starting at 1
+         */
+        void handle(HttpExchange exchange, Request request, int call) throws IOException;
+    }
+
+    record Request(String method, String path, Headers headers, byte[] body) {
+    }
+
+    private final HttpServer _server;
+    private final ExecutorService _executor = Executors.newCachedThreadPool();
+    private final List<Request> _requests = new CopyOnWriteArrayList<>();
+
+    StubHttpServer(Handler handler) throws IOException {
+        _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        _server.setExecutor(_executor);
+        _server.createContext("/", exchange -> {
+            try (exchange) {
+                byte[] body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = in.readAllBytes();
+                }
+                Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), exchange.getRequestHeaders(), body);
+                int call;
+                synchronized (_requests) {
+                    _requests.add(request);
+                    call = _requests.size();
+                }
+                handler.handle(exchange, request, call);
+            }
+        });
+        _server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + _server.getAddress().getPort();
+    }
+
+    List<Request> requests() {
+        return _requests;
+    }
+
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("content-type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+}